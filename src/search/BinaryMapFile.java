@@ -0,0 +1,287 @@
+package search;
+
+import search.grid.CompactGrid;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes maps in a versioned binary format.
+ *
+ * <p>All values are little-endian. The file starts with a 24 byte header:</p>
+ * <pre>
+ *   offset  size  field
+ *        0     4  magic, the ASCII bytes "PFMB"
+ *        4     2  format version, {@link #VERSION}
+ *        6     2  flags, any of {@link #FLAG_GOALS} and {@link #FLAG_COSTS}. Other bits are reserved and written as 0
+ *        8     4  rows
+ *       12     4  cols
+ *       16     4  id of the start cell, -1 if there is none
+ *       20     4  id of the first goal cell, -1 if there is none
+ * </pre>
+ * <p>followed by the walkability bitset of a {@link CompactGrid}: <code>(rows * cols + 63) / 64</code> longs, bit
+ * <code>id % 64</code> of long <code>id / 64</code> set if cell <code>id</code> is walkable. That is one bit per cell on
+ * disk, the same layout the grid uses in memory</p>
+ *
+ * <p>If {@link #FLAG_GOALS} is set, the body is followed by the number of other goal cells as an int and then their
+ * ids as ints. Maps with at most one goal cell leave it out, so they are written the same as before there could be
+ * more</p>
+ *
+ * <p>If {@link #FLAG_COSTS} is set, the file ends with the terrain cost of every cell, one unsigned byte per cell in id
+ * order. Maps where every cell costs {@link CompactGrid#MIN_COST} leave it out</p>
+ *
+ * <p>Files are read through a memory mapping, so the body goes from the page cache into the grid's bitset in a single
+ * bulk copy without being parsed. The goal cells and terrain costs can add up to more than a single mapping can hold,
+ * so they are mapped a window at a time</p>
+ */
+public class BinaryMapFile {
+
+    /**
+     * File extension of binary maps
+     */
+    public static final String EXTENSION = ".bin";
+
+    /**
+     * "PFMB" read as a little-endian int
+     */
+    public static final int MAGIC = 'P' | 'F' << 8 | 'M' << 16 | 'B' << 24;
+
+    /**
+     * Current version of the format
+     */
+    public static final short VERSION = 1;
+
+    /**
+     * Size of the header in bytes. A multiple of 8 so the body is aligned for reading longs
+     */
+    public static final int HEADER_SIZE = 24;
+
+    /**
+     * Flag set when the body is followed by the ids of more goal cells
+     */
+    public static final short FLAG_GOALS = 1;
+
+    /**
+     * Flag set when the file ends with the terrain costs of the cells
+     */
+    public static final short FLAG_COSTS = 2;
+
+    /**
+     * Most bytes of the goal cells or terrain costs mapped at once. A multiple of 4 so no goal cell is split
+     */
+    private static final int WINDOW_SIZE = 1 << 26;
+
+    private BinaryMapFile() {
+    }
+
+    /**
+     * @param file file to check
+     * @return whether or not the file has the binary map extension
+     */
+    public static boolean isBinaryMap(File file) {
+        return file.getName().endsWith(EXTENSION);
+    }
+
+    /**
+     * Reads a binary map
+     *
+     * @param file file to read
+     * @return the map
+     * @throws IOException if the file can't be read or isn't a valid binary map
+     */
+    public static CompactGrid read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE)
+                throw new IOException(file + " is too small to be a binary map");
+
+            MappedByteBuffer buffer = map(channel, 0, HEADER_SIZE);
+
+            if (buffer.getInt(0) != MAGIC)
+                throw new IOException(file + " is not a binary map");
+
+            short version = buffer.getShort(4);
+            if (version != VERSION)
+                throw new IOException(file + " has unsupported binary map version " + version);
+
+            short flags = buffer.getShort(6);
+            if ((flags & ~(FLAG_GOALS | FLAG_COSTS)) != 0)
+                throw new IOException(file + " has unsupported binary map flags " + flags);
+
+            int rows = buffer.getInt(8);
+            int cols = buffer.getInt(12);
+            int start = buffer.getInt(16);
+            int goal = buffer.getInt(20);
+
+            if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE)
+                throw new IOException(file + " has invalid dimensions " + rows + "x" + cols);
+
+            int size = rows * cols;
+            int words = CompactGrid.wordCount(size);
+
+            if (fileSize < HEADER_SIZE + 8L * words)
+                throw new IOException(file + " is truncated");
+
+            if (start < -1 || start >= size || goal < -1 || goal >= size)
+                throw new IOException(file + " has a start or goal cell outside of the map");
+
+            // at most 2^31 bits, well under the most a mapping can hold
+            LongBuffer body = map(channel, HEADER_SIZE, 8L * words).asLongBuffer();
+
+            long[] walkable = new long[words];
+            body.get(walkable);
+
+            CompactGrid map = new CompactGrid(rows, cols, walkable, start, goal);
+
+            long offset = HEADER_SIZE + 8L * words;
+
+            if ((flags & FLAG_GOALS) != 0)
+                offset = readGoals(file, channel, offset, map);
+
+            if ((flags & FLAG_COSTS) != 0)
+                readCosts(file, channel, offset, map);
+
+            return map;
+        }
+    }
+
+    /**
+     * Reads the goal cells after the body and adds them to the map
+     *
+     * @param offset offset of the first byte after the body
+     * @return offset of the first byte after the goal cells
+     */
+    private static long readGoals(File file, FileChannel channel, long offset, CompactGrid map) throws IOException {
+        if (channel.size() < offset + 4)
+            throw new IOException(file + " is truncated");
+
+        int count = map(channel, offset, 4).getInt(0);
+        if (count < 0 || channel.size() < offset + 4 + 4L * count)
+            throw new IOException(file + " is truncated");
+
+        for (int read = 0; read < count; ) {
+            int length = Math.min(count - read, WINDOW_SIZE / 4);
+            ByteBuffer window = map(channel, offset + 4 + 4L * read, 4L * length);
+
+            for (int i = 0; i < length; i++) {
+                int goal = window.getInt(4 * i);
+                if (goal < 0 || goal >= map.size())
+                    throw new IOException(file + " has a goal cell outside of the map");
+
+                map.addGoal(goal);
+            }
+
+            read += length;
+        }
+
+        return offset + 4 + 4L * count;
+    }
+
+    /**
+     * Reads the terrain costs and sets them on the map
+     *
+     * @param offset offset of the first cost
+     */
+    private static void readCosts(File file, FileChannel channel, long offset, CompactGrid map) throws IOException {
+        int size = map.size();
+        if (channel.size() < offset + size)
+            throw new IOException(file + " is truncated");
+
+        for (int first = 0; first < size; ) {
+            int length = Math.min(size - first, WINDOW_SIZE);
+            ByteBuffer window = map(channel, offset + first, length);
+
+            for (int i = 0; i < length; i++) {
+                int cost = window.get(i) & 0xFF;
+                if (cost < CompactGrid.MIN_COST)
+                    throw new IOException(file + " has a cell with cost " + cost);
+
+                map.setCost(first + i, cost);
+            }
+
+            first += length;
+        }
+    }
+
+    /**
+     * Maps part of a file for reading, little-endian
+     *
+     * @param position offset of the first byte
+     * @param length number of bytes, at most {@link Integer#MAX_VALUE}
+     */
+    private static MappedByteBuffer map(FileChannel channel, long position, long length) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        return buffer;
+    }
+
+    /**
+     * Writes a map in the binary format, replacing the file if it exists
+     *
+     * @param map map to write
+     * @param file file to write to
+     * @throws IOException if the file can't be written
+     */
+    public static void write(CompactGrid map, File file) throws IOException {
+        int words = CompactGrid.wordCount(map.size());
+        long[] walkable = map.getWalkableBits();
+        int[] goals = map.getGoals();
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC);
+            header.putShort(VERSION);
+            header.putShort((short) (((goals.length > 1) ? FLAG_GOALS : 0) | (map.hasUniformCosts() ? 0 : FLAG_COSTS)));
+            header.putInt(map.getRows());
+            header.putInt(map.getCols());
+            header.putInt(map.getStart());
+            header.putInt(map.getGoal());
+            header.flip();
+            writeFully(channel, header);
+
+            // write the body in chunks so big maps don't need a second full copy in memory
+            ByteBuffer chunk = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            LongBuffer longs = chunk.asLongBuffer();
+
+            for (int i = 0; i < words; ) {
+                int n = Math.min(longs.capacity(), words - i);
+
+                longs.clear();
+                longs.put(walkable, i, n);
+
+                chunk.clear();
+                chunk.limit(8 * n);
+                writeFully(channel, chunk);
+
+                i += n;
+            }
+
+            if (goals.length > 1) {
+                ByteBuffer extra = ByteBuffer.allocate(4 * goals.length).order(ByteOrder.LITTLE_ENDIAN);
+                extra.putInt(goals.length - 1);
+                for (int i = 1; i < goals.length; i++)
+                    extra.putInt(goals[i]);
+
+                extra.flip();
+                writeFully(channel, extra);
+            }
+
+            if (!map.hasUniformCosts())
+                writeFully(channel, ByteBuffer.wrap(map.getCostBytes()));
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+}
@@ -0,0 +1,69 @@
+package search;
+
+import search.grid.CompactGrid;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Converts text maps into binary maps that sit next to them, e.g. <code>maps/maze.txt</code> becomes
+ * <code>maps/maze.bin</code>.
+ *
+ * <p>Usage: <code>MapConverter [file or directory...]</code>. With no arguments every <code>.txt</code> map in
+ * <code>./maps</code> is converted</p>
+ *
+ * @see BinaryMapFile
+ */
+public class MapConverter {
+
+    public static void main(String[] args) {
+        String[] paths = (args.length == 0) ? new String[]{"./maps"} : args;
+
+        for (String path : paths) {
+            File file = new File(path);
+
+            if (file.isDirectory()) {
+                File[] maps = file.listFiles((dir, name) -> name.endsWith(".txt"));
+                if (maps == null)
+                    continue;
+
+                for (File map : maps)
+                    convert(map);
+            } else {
+                convert(file);
+            }
+        }
+    }
+
+    /**
+     * Converts one text map into a binary map next to it
+     *
+     * @param file text map to convert
+     * @return the binary map that was written, <code>null</code> if the text map couldn't be read or the binary map
+     * couldn't be written
+     */
+    public static File convert(File file) {
+        CompactGrid map = SearcherFileReader.readMap(file);
+        if (map == null) {
+            System.err.println("Couldn't read " + file);
+            return null;
+        }
+
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        String baseName = (dot < 0) ? name : name.substring(0, dot);
+
+        File out = new File(file.getParentFile(), baseName + BinaryMapFile.EXTENSION);
+
+        try {
+            BinaryMapFile.write(map, out);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+
+        System.out.println(file + " -> " + out + " (" + map.getRows() + "x" + map.getCols() + ")");
+        return out;
+    }
+
+}
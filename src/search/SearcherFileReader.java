@@ -1,70 +1,103 @@
 package search;
 
+import search.grid.CompactGrid;
+
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.Scanner;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 
 public class SearcherFileReader {
 
-    private int gridRows;
-    private int gridCols;
+    private CompactGrid map;
 
     private boolean startCellExists;
     private boolean goalCellExists;
 
-    private int[][] colors;
-
-    public SearcherFileReader(int gridRows, int gridCols, boolean startCellExists, boolean goalCellExists,
-                              int[][] colors) {
-        this.gridRows = gridRows;
-        this.gridCols = gridCols;
+    public SearcherFileReader(CompactGrid map, boolean startCellExists, boolean goalCellExists) {
+        this.map = map;
 
         this.startCellExists = startCellExists;
         this.goalCellExists = goalCellExists;
+    }
+
+    /**
+     * Reads a map in either format: {@link BinaryMapFile binary} if the file has the <code>.bin</code> extension,
+     * text otherwise
+     *
+     * @param file file to read
+     * @return the map, <code>null</code> if there is no file or it can't be read
+     */
+    public static CompactGrid readMap(File file) {
+        if (file == null)
+            return null;
+
+        if (BinaryMapFile.isBinaryMap(file)) {
+            try {
+                return BinaryMapFile.read(file);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
 
-        this.colors = colors;
+        SearcherFileReader fileReader = readFile(file);
+        return (fileReader != null) ? fileReader.getMap() : null;
     }
 
+    /**
+     * Reads a text map: the number of rows and columns, whether or not there is a start and a goal cell, then the ARGB
+     * color of every cell, all separated by whitespace. The colors can be followed by the terrain cost of every cell;
+     * maps without them have every cell cost {@link CompactGrid#MIN_COST}.
+     *
+     * <p>The file is streamed through a {@link Tokenizer} and every color goes straight into the map's walkability
+     * bits as it is read, so nothing bigger than the read buffer and the map itself is ever held in memory</p>
+     *
+     * @param file file to read
+     * @return the reader, <code>null</code> if there is no file or it can't be read
+     */
     public static SearcherFileReader readFile(File file) {
         if (file == null)
             return null;
 
-        Scanner scan = null;
-        try {
-            scan = new Scanner(file);
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-        }
+        try (InputStream in = new FileInputStream(file)) {
+            Tokenizer tokenizer = new Tokenizer(in);
 
-        assert scan != null;
+            int gridRows = tokenizer.nextInt();
+            int gridCols = tokenizer.nextInt();
 
-        int gridRows = scan.nextInt();
-        int gridCols = scan.nextInt();
+            boolean startCellExists = tokenizer.nextBoolean();
+            boolean goalCellExists = tokenizer.nextBoolean();
 
-        if (gridRows != gridCols)
-            return null;
+            // every cell starts out blocked, setColor only has to set the walkable ones
+            CompactGrid map = new CompactGrid(gridRows, gridCols, null, -1, -1);
 
-        boolean startCellExists = scan.nextBoolean();
-        boolean goalCellExists = scan.nextBoolean();
+            int size = map.size();
+            for (int id = 0; id < size; id++)
+                map.setColor(id, tokenizer.nextInt());
 
-        int[][] colors = new int[gridRows][gridCols];
-        for (int i = 0; i < gridRows; i++) {
-            for (int j = 0; j < gridCols; j++) {
-                colors[i][j] = scan.nextInt();
+            if (tokenizer.hasNext()) {
+                for (int id = 0; id < size; id++)
+                    map.setCost(id, tokenizer.nextInt());
             }
-        }
 
-        scan.close();
+            return new SearcherFileReader(map, startCellExists, goalCellExists);
+        } catch (IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
 
-        return new SearcherFileReader(gridRows, gridCols, startCellExists, goalCellExists, colors);
+    public CompactGrid getMap() {
+        return map;
     }
 
     public int getGridRows() {
-        return gridRows;
+        return map.getRows();
     }
 
     public int getGridCols() {
-        return gridCols;
+        return map.getCols();
     }
 
     public boolean getStartCellExists() {
@@ -75,8 +108,130 @@ public class SearcherFileReader {
         return goalCellExists;
     }
 
-    public int[][] getColors() {
-        return colors;
+    /**
+     * Splits a stream of ASCII bytes into whitespace separated tokens. Reads through its own buffer and parses numbers
+     * from the bytes directly, without creating a <code>String</code> per token like a <code>Scanner</code> does
+     */
+    private static class Tokenizer {
+
+        private static final int BUFFER_SIZE = 1 << 16;
+
+        private final InputStream in;
+        private final byte[] buffer;
+
+        private int position;
+        private int limit;
+
+        Tokenizer(InputStream in) {
+            this.in = in;
+            this.buffer = new byte[BUFFER_SIZE];
+        }
+
+        /**
+         * @return next byte, from 0 to 255, <code>-1</code> at the end of the stream
+         */
+        private int read() throws IOException {
+            if (position == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+
+            return buffer[position++] & 0xFF;
+        }
+
+        /**
+         * @return next byte without reading it, <code>-1</code> at the end of the stream
+         */
+        private int peek() throws IOException {
+            int b = read();
+            if (b != -1)
+                position--;
+
+            return b;
+        }
+
+        /**
+         * @return whether or not there is another token before the end of the stream
+         */
+        boolean hasNext() throws IOException {
+            int b;
+            while ((b = peek()) != -1 && isWhitespace(b))
+                position++;
+
+            return b != -1;
+        }
+
+        /**
+         * @return first byte of the next token
+         * @throws IOException if the stream ends before another token
+         */
+        private int skipWhitespace() throws IOException {
+            int b;
+            do {
+                b = read();
+            } while (b == ' ' || b == '\n' || b == '\r' || b == '\t');
+
+            if (b == -1)
+                throw new IOException("Unexpected end of map file");
+
+            return b;
+        }
+
+        private static boolean isWhitespace(int b) {
+            return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == -1;
+        }
+
+        int nextInt() throws IOException {
+            int b = skipWhitespace();
+
+            boolean negative = b == '-';
+            if (negative)
+                b = read();
+
+            if (b < '0' || b > '9')
+                throw new IOException("Expected a number in map file");
+
+            // accumulate negatively so Integer.MIN_VALUE can be parsed
+            long value = 0;
+            while (b >= '0' && b <= '9') {
+                value = value * 10 - (b - '0');
+                if (value < Integer.MIN_VALUE)
+                    throw new IOException("Number out of range in map file");
+
+                b = read();
+            }
+
+            if (!isWhitespace(b))
+                throw new IOException("Expected a number in map file");
+
+            if (!negative && value == Integer.MIN_VALUE)
+                throw new IOException("Number out of range in map file");
+
+            return (int) (negative ? value : -value);
+        }
+
+        boolean nextBoolean() throws IOException {
+            int b = skipWhitespace();
+            if (b != 't' && b != 'f')
+                throw new IOException("Expected true or false in map file");
+
+            String expected = (b == 't') ? "true" : "false";
+            for (int i = 1; i < expected.length(); i++) {
+                if (read() != expected.charAt(i))
+                    throw new IOException("Expected true or false in map file");
+            }
+
+            if (!isWhitespace(read()))
+                throw new IOException("Expected true or false in map file");
+
+            return b == 't';
+        }
+
     }
 
 }
@@ -0,0 +1,270 @@
+package search.bench;
+
+import search.grid.CompactGrid;
+import search.util.IntStack;
+
+import java.util.Random;
+
+/**
+ * Generates the maps searchers are benchmarked on. Every map has its start cell in the top left corner and its goal
+ * cell in the bottom right corner, and the same seed always gives the same map
+ */
+public class MapGenerator {
+
+    /**
+     * The kinds of maps that can be generated
+     */
+    public enum MapType {
+        /**
+         * No walls at all
+         */
+        OPEN,
+
+        /**
+         * A perfect maze with one-cell-wide corridors, so there is exactly one path between any two cells
+         */
+        MAZE,
+
+        /**
+         * Walls scattered uniformly at random over {@link #RANDOM_DENSITY} of the cells. The goal isn't always
+         * reachable
+         */
+        RANDOM,
+
+        /**
+         * Square rooms of {@link #ROOM_SIZE} cells separated by walls, with a door into each neighboring room
+         */
+        ROOMS,
+
+        /**
+         * No walls, but every cell has a terrain cost: grass crossed by a grid of roads every {@link #ROAD_SPACING}
+         * cells, with round patches of mud and water
+         */
+        TERRAIN
+    }
+
+    /**
+     * Fraction of the cells that are walls on a {@link MapType#RANDOM} map
+     */
+    public static final double RANDOM_DENSITY = 0.25;
+
+    /**
+     * Width of the rooms on a {@link MapType#ROOMS} map, not counting their walls
+     */
+    public static final int ROOM_SIZE = 16;
+
+    /**
+     * Terrain costs of a {@link MapType#TERRAIN} map
+     */
+    public static final int ROAD_COST = 1;
+    public static final int GRASS_COST = 2;
+    public static final int MUD_COST = 5;
+    public static final int WATER_COST = 12;
+
+    /**
+     * Cells between the roads of a {@link MapType#TERRAIN} map
+     */
+    public static final int ROAD_SPACING = 32;
+
+    private MapGenerator() {
+    }
+
+    /**
+     * @param type kind of map
+     * @param rows number of rows
+     * @param cols number of columns
+     * @param seed seed of the random walls, mazes and doors
+     * @return the map
+     */
+    public static CompactGrid generate(MapType type, int rows, int cols, long seed) {
+        Random random = new Random(seed);
+        CompactGrid map;
+
+        switch (type) {
+            case MAZE:
+                map = maze(rows, cols, random);
+                break;
+            case RANDOM:
+                map = randomObstacles(rows, cols, random);
+                break;
+            case ROOMS:
+                map = rooms(rows, cols, random);
+                break;
+            case TERRAIN:
+                map = terrain(rows, cols, random);
+                break;
+            default:
+                map = new CompactGrid(rows, cols);
+                break;
+        }
+
+        int start = 0;
+        int goal = map.getId(lastIndex(rows, type), lastIndex(cols, type));
+
+        map.setWalkable(start, true);
+        map.setWalkable(goal, true);
+        map.setStart(start);
+        map.setGoal(goal);
+
+        return map;
+    }
+
+    /**
+     * Last row or column the goal can go on. Mazes only have corridors on even rows and columns, so their goal goes
+     * on the last even one
+     */
+    private static int lastIndex(int length, MapType type) {
+        if (type != MapType.MAZE)
+            return length - 1;
+
+        return (length - 1) & ~1;
+    }
+
+    private static CompactGrid randomObstacles(int rows, int cols, Random random) {
+        CompactGrid map = new CompactGrid(rows, cols);
+
+        int size = map.size();
+        for (int id = 0; id < size; id++) {
+            if (random.nextDouble() < RANDOM_DENSITY)
+                map.setWalkable(id, false);
+        }
+
+        return map;
+    }
+
+    /**
+     * Carves a maze with an iterative randomized depth-first search. Maze nodes are the cells with an even row and
+     * column, and a wall cell is carved out between two nodes when the search moves from one to the other
+     */
+    private static CompactGrid maze(int rows, int cols, Random random) {
+        CompactGrid map = new CompactGrid(rows, cols, null, -1, -1);
+
+        int nodeRows = (rows + 1) / 2;
+        int nodeCols = (cols + 1) / 2;
+
+        int[] dRow = {-1, 1, 0, 0};
+        int[] dCol = {0, 0, -1, 1};
+        int[] order = {0, 1, 2, 3};
+
+        IntStack stack = new IntStack();
+        stack.push(0);
+        map.setWalkable(0, true);
+
+        while (!stack.isEmpty()) {
+            int node = stack.pop();
+            int row = node / nodeCols;
+            int col = node % nodeCols;
+
+            shuffle(order, random);
+
+            for (int d : order) {
+                int nRow = row + dRow[d];
+                int nCol = col + dCol[d];
+
+                if (nRow < 0 || nRow >= nodeRows || nCol < 0 || nCol >= nodeCols)
+                    continue;
+
+                int cell = map.getId(2 * nRow, 2 * nCol);
+                if (map.isWalkable(cell))
+                    continue;
+
+                // come back to this node once the neighbor's branch is done
+                stack.push(node);
+                stack.push(nRow * nodeCols + nCol);
+
+                map.setWalkable(map.getId(row + nRow, col + nCol), true);
+                map.setWalkable(cell, true);
+                break;
+            }
+        }
+
+        return map;
+    }
+
+    /**
+     * Walls every {@link #ROOM_SIZE} + 1 cells in both directions, with one door at a random spot in each wall
+     * between two rooms
+     */
+    private static CompactGrid rooms(int rows, int cols, Random random) {
+        CompactGrid map = new CompactGrid(rows, cols);
+        int step = ROOM_SIZE + 1;
+
+        for (int row = ROOM_SIZE; row < rows; row += step) {
+            for (int col = 0; col < cols; col++)
+                map.setWalkable(map.getId(row, col), false);
+        }
+
+        for (int col = ROOM_SIZE; col < cols; col += step) {
+            for (int row = 0; row < rows; row++)
+                map.setWalkable(map.getId(row, col), false);
+        }
+
+        // a door in the wall below and to the right of every room
+        for (int top = 0; top < rows; top += step) {
+            for (int left = 0; left < cols; left += step) {
+                int height = Math.min(ROOM_SIZE, rows - top);
+                int width = Math.min(ROOM_SIZE, cols - left);
+
+                if (top + ROOM_SIZE < rows)
+                    map.setWalkable(map.getId(top + ROOM_SIZE, left + random.nextInt(width)), true);
+
+                if (left + ROOM_SIZE < cols)
+                    map.setWalkable(map.getId(top + random.nextInt(height), left + ROOM_SIZE), true);
+            }
+        }
+
+        return map;
+    }
+
+    /**
+     * Grass everywhere, a patch of mud or water for about every 400 cells, then roads over the top
+     */
+    private static CompactGrid terrain(int rows, int cols, Random random) {
+        CompactGrid map = new CompactGrid(rows, cols);
+
+        int size = map.size();
+        for (int id = 0; id < size; id++)
+            map.setCost(id, GRASS_COST);
+
+        int patches = size / 400;
+        for (int i = 0; i < patches; i++) {
+            int centerRow = random.nextInt(rows);
+            int centerCol = random.nextInt(cols);
+            int radius = 2 + random.nextInt(7);
+            int cost = random.nextBoolean() ? MUD_COST : WATER_COST;
+
+            for (int row = Math.max(0, centerRow - radius); row <= Math.min(rows - 1, centerRow + radius); row++) {
+                for (int col = Math.max(0, centerCol - radius); col <= Math.min(cols - 1, centerCol + radius); col++) {
+                    int dRow = row - centerRow;
+                    int dCol = col - centerCol;
+
+                    if (dRow * dRow + dCol * dCol <= radius * radius)
+                        map.setCost(map.getId(row, col), cost);
+                }
+            }
+        }
+
+        for (int row = 0; row < rows; row += ROAD_SPACING) {
+            for (int col = 0; col < cols; col++)
+                map.setCost(map.getId(row, col), ROAD_COST);
+        }
+
+        for (int col = 0; col < cols; col += ROAD_SPACING) {
+            for (int row = 0; row < rows; row++)
+                map.setCost(map.getId(row, col), ROAD_COST);
+        }
+
+        return map;
+    }
+
+    private static void shuffle(int[] values, Random random) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+
+            int temp = values[i];
+            values[i] = values[j];
+            values[j] = temp;
+        }
+    }
+
+}
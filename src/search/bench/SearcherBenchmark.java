@@ -0,0 +1,347 @@
+package search.bench;
+
+import search.grid.CompactGrid;
+import search.pathfinder.BidirectionalBreadthFirstSearcher;
+import search.pathfinder.BreadthFirstSearcher;
+import search.pathfinder.DepthFirstSearcher;
+import search.pathfinder.DijkstraSearcher;
+import search.pathfinder.ParallelBreadthFirstSearcher;
+import search.pathfinder.PathPipeline;
+import search.pathfinder.PathResult;
+import search.pathfinder.Searcher;
+import search.pathfinder.heuristic.AStarSearcher;
+import search.pathfinder.heuristic.BidirectionalAStarSearcher;
+import search.pathfinder.heuristic.DStarLiteSearcher;
+import search.pathfinder.heuristic.GreedyBestFirstSearcher;
+import search.pathfinder.heuristic.HeuristicDepthFirstSearcher;
+import search.pathfinder.heuristic.HierarchicalAStarSearcher;
+import search.pathfinder.heuristic.JumpPointSearcher;
+import search.pathfinder.heuristic.LifelongPlanningAStarSearcher;
+import search.pathfinder.heuristic.ParallelBidirectionalAStarSearcher;
+import search.pathfinder.heuristic.ThetaStarSearcher;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Benchmarks every <code>Searcher</code> in headless mode over generated maps, to give changes to the pathfinder
+ * package a baseline to compare against.
+ *
+ * <p>Each combination of map type, size and searcher is warmed up for {@link #DEFAULT_WARMUP_ITERATIONS} iterations
+ * and then measured for {@link #DEFAULT_ITERATIONS}. An iteration searches the same map over and over for
+ * {@link #DEFAULT_ITERATION_MILLIS} milliseconds. The report has, per combination:</p>
+ * <ul>
+ *     <li>number of waypoints left once the path is run through {@link PathPipeline#WAYPOINTS}</li>
+ *     <li>throughput, searches per second</li>
+ *     <li>expansions per second</li>
+ *     <li>allocation rate and bytes allocated per search, summed over every thread so the work the parallel searchers
+ *     hand to their pools counts too</li>
+ *     <li>number of garbage collections while measuring</li>
+ * </ul>
+ *
+ * <p>The map doesn't change between searches, so the incremental searchers only search it once and after that only
+ * follow the path they kept. Their numbers are the cost of asking for a path again, not of finding one</p>
+ *
+ * <p>Usage: <code>SearcherBenchmark [--maps open,maze,random,rooms,terrain] [--sizes 100,256,...]
+ * [--searchers astar,bfs,...] [--connectivity four|eight] [--corners never|one_wall|always] [--warmup n]
+ * [--iterations n] [--millis n] [--seed n]</code></p>
+ */
+public class SearcherBenchmark {
+
+    public static final int[] DEFAULT_SIZES = {100, 256, 512, 1024, 2048, 4096};
+
+    public static final int DEFAULT_WARMUP_ITERATIONS = 2;
+    public static final int DEFAULT_ITERATIONS = 3;
+    public static final int DEFAULT_ITERATION_MILLIS = 1000;
+
+    public static final long DEFAULT_SEED = 42;
+
+    /**
+     * Names of the searchers that can be benchmarked. New searchers go here and in {@link #createSearcher(String)}
+     */
+    public static final String[] SEARCHERS = {"astar", "greedy", "dfs", "hdfs", "bfs", "jps", "biastar", "bibfs",
+            "pbiastar", "pbfs", "hpastar", "dijkstra", "theta", "dstar", "lpa"};
+
+    private List<MapGenerator.MapType> mapTypes = new ArrayList<>();
+    private List<Integer> sizes = new ArrayList<>();
+    private List<String> searchers = new ArrayList<>();
+
+    private CompactGrid.Connectivity connectivity = CompactGrid.Connectivity.FOUR;
+    private CompactGrid.CornerCutting cornerCutting = CompactGrid.CornerCutting.NEVER;
+
+    private int warmupIterations = DEFAULT_WARMUP_ITERATIONS;
+    private int iterations = DEFAULT_ITERATIONS;
+    private int iterationMillis = DEFAULT_ITERATION_MILLIS;
+    private long seed = DEFAULT_SEED;
+
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        SearcherBenchmark benchmark = new SearcherBenchmark();
+
+        try {
+            benchmark.parseArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+
+        benchmark.run();
+    }
+
+    /**
+     * @param name name of the searcher, one of {@link #SEARCHERS}
+     * @return a new searcher without a <code>Grid</code>
+     */
+    public static Searcher createSearcher(String name) {
+        switch (name) {
+            case "astar":
+                return new AStarSearcher(null, false);
+            case "greedy":
+                return new GreedyBestFirstSearcher(null, false);
+            case "dfs":
+                return new DepthFirstSearcher(null, false);
+            case "hdfs":
+                return new HeuristicDepthFirstSearcher(null, false);
+            case "bfs":
+                return new BreadthFirstSearcher(null, false);
+            case "jps":
+                return new JumpPointSearcher(null, false);
+            case "biastar":
+                return new BidirectionalAStarSearcher(null, false);
+            case "bibfs":
+                return new BidirectionalBreadthFirstSearcher(null, false);
+            case "pbiastar":
+                return new ParallelBidirectionalAStarSearcher(null, false);
+            case "pbfs":
+                return new ParallelBreadthFirstSearcher(null, false);
+            case "hpastar":
+                return new HierarchicalAStarSearcher(null, false);
+            case "dijkstra":
+                return new DijkstraSearcher(null, false);
+            case "theta":
+                return new ThetaStarSearcher(null, false);
+            case "dstar":
+                return new DStarLiteSearcher(null, false);
+            case "lpa":
+                return new LifelongPlanningAStarSearcher(null, false);
+            default:
+                throw new IllegalArgumentException("Unknown searcher: " + name);
+        }
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length)
+                throw new IllegalArgumentException("Missing value for " + option);
+
+            String value = args[++i];
+
+            switch (option) {
+                case "--maps":
+                    for (String type : value.split(","))
+                        mapTypes.add(MapGenerator.MapType.valueOf(type.trim().toUpperCase(Locale.ROOT)));
+                    break;
+                case "--sizes":
+                    for (String size : value.split(","))
+                        sizes.add(Integer.parseInt(size.trim()));
+                    break;
+                case "--searchers":
+                    for (String searcher : value.split(",")) {
+                        createSearcher(searcher.trim());
+                        searchers.add(searcher.trim());
+                    }
+                    break;
+                case "--connectivity":
+                    connectivity = CompactGrid.Connectivity.valueOf(value.toUpperCase(Locale.ROOT));
+                    break;
+                case "--corners":
+                    cornerCutting = CompactGrid.CornerCutting.valueOf(value.toUpperCase(Locale.ROOT));
+                    break;
+                case "--warmup":
+                    warmupIterations = Integer.parseInt(value);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(value);
+                    break;
+                case "--millis":
+                    iterationMillis = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+
+        if (mapTypes.isEmpty()) {
+            for (MapGenerator.MapType type : MapGenerator.MapType.values())
+                mapTypes.add(type);
+        }
+
+        if (sizes.isEmpty()) {
+            for (int size : DEFAULT_SIZES)
+                sizes.add(size);
+        }
+
+        if (searchers.isEmpty()) {
+            for (String searcher : SEARCHERS)
+                searchers.add(searcher);
+        }
+    }
+
+    private void run() {
+        System.out.printf("%-7s %6s %-8s %5s %10s %8s %10s %12s %14s %10s %12s %5s%n", "map", "size", "searcher",
+                "found", "cost", "points", "expanded", "ops/s", "expansions/s", "MB/s", "B/op", "gcs");
+
+        for (MapGenerator.MapType type : mapTypes) {
+            for (int size : sizes) {
+                CompactGrid map = MapGenerator.generate(type, size, size, seed);
+                map.setConnectivity(connectivity);
+                map.setCornerCutting(cornerCutting);
+
+                for (String name : searchers) {
+                    Searcher searcher = createSearcher(name);
+                    searcher.setMap(map);
+
+                    for (int i = 0; i < warmupIterations; i++)
+                        iterate(searcher);
+
+                    Measurement total = new Measurement();
+                    for (int i = 0; i < iterations; i++)
+                        total.add(iterate(searcher));
+
+                    PathResult result = searcher.searchHeadless();
+                    int waypoints = result.isFound() ? PathPipeline.WAYPOINTS.process(map, result.getPath()).length : 0;
+                    print(type, size, name, result, waypoints, total);
+                }
+            }
+        }
+    }
+
+    /**
+     * Searches over and over until {@link #iterationMillis} have passed
+     *
+     * @param searcher searcher to run
+     * @return what was measured
+     */
+    private Measurement iterate(Searcher searcher) {
+        Measurement measurement = new Measurement();
+
+        long gcsBefore = gcCount();
+        Map<Long, Long> allocatedBefore = allocatedBytes();
+        long startTime = System.nanoTime();
+        long endTime = startTime + iterationMillis * 1_000_000L;
+
+        long now;
+        do {
+            PathResult result = searcher.searchHeadless();
+
+            measurement.ops++;
+            measurement.expanded += result.getExpandedCount();
+
+            now = System.nanoTime();
+        } while (now < endTime);
+
+        measurement.nanos = now - startTime;
+        measurement.allocatedBytes = allocatedSince(allocatedBefore);
+        measurement.gcs = gcCount() - gcsBefore;
+
+        return measurement;
+    }
+
+    private void print(MapGenerator.MapType type, int size, String name, PathResult result, int waypoints,
+                       Measurement total) {
+        double seconds = total.nanos / 1e9;
+        boolean measuresAllocation = total.allocatedBytes >= 0;
+
+        System.out.printf(Locale.ROOT, "%-7s %6d %-8s %5s %10.2f %8d %10d %12.2f %14.0f %10s %12s %5d%n",
+                type.name().toLowerCase(Locale.ROOT), size, name, result.isFound(), result.getCost(), waypoints,
+                result.getExpandedCount(), total.ops / seconds, total.expanded / seconds,
+                measuresAllocation ? String.format(Locale.ROOT, "%.2f", total.allocatedBytes / seconds / 1e6) : "n/a",
+                measuresAllocation ? String.valueOf(total.allocatedBytes / total.ops) : "n/a", total.gcs);
+    }
+
+    /**
+     * @return bytes each live thread has allocated so far, by thread id, <code>null</code> if the JVM can't tell
+     */
+    private Map<Long, Long> allocatedBytes() {
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean))
+            return null;
+
+        long[] ids = threadBean.getAllThreadIds();
+        long[] bytes = ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(ids);
+
+        Map<Long, Long> allocated = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            // the thread ended before it could be asked
+            if (bytes[i] >= 0)
+                allocated.put(ids[i], bytes[i]);
+        }
+
+        return allocated;
+    }
+
+    /**
+     * Threads that end while measuring take what they allocated with them, so pools that keep their threads alive
+     * between searches are counted in full but short lived threads aren't
+     *
+     * @param before bytes each thread had allocated when measuring began, from {@link #allocatedBytes()}
+     * @return bytes allocated by every live thread since, <code>-1</code> if the JVM can't tell
+     */
+    private long allocatedSince(Map<Long, Long> before) {
+        Map<Long, Long> after = allocatedBytes();
+        if (before == null || after == null)
+            return -1;
+
+        long allocated = 0;
+        for (Map.Entry<Long, Long> thread : after.entrySet()) {
+            Long bytesBefore = before.get(thread.getKey());
+            allocated += thread.getValue() - (bytesBefore == null ? 0 : bytesBefore);
+        }
+
+        return allocated;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            count += Math.max(0, gc.getCollectionCount());
+
+        return count;
+    }
+
+    /**
+     * What was measured over one or more iterations
+     */
+    private static class Measurement {
+
+        private long ops;
+        private long expanded;
+        private long nanos;
+        private long allocatedBytes;
+        private long gcs;
+
+        private void add(Measurement other) {
+            ops += other.ops;
+            expanded += other.expanded;
+            nanos += other.nanos;
+            gcs += other.gcs;
+
+            if (allocatedBytes >= 0 && other.allocatedBytes >= 0)
+                allocatedBytes += other.allocatedBytes;
+            else
+                allocatedBytes = -1;
+        }
+
+    }
+
+}
@@ -1,13 +1,14 @@
 package search.grid;
 
+import search.util.ChangeJournal;
+
 import java.awt.*;
-import java.util.ArrayList;
 
 /**
  * A <code>Cell</code> is a square unit on a <code>Grid</code>> that can be used by a <code>Searcher</code> to search for a path from a starting
  * <code>Cell</code> to a goal <code>Cell</code>.
  *
- * <p>A <code>Cell</code> contains many attributes such as a <code>Color</code>, <code>(x, y)</code> coordinates, neighboring cells, various costs for searching, and more</p>
+ * <p>A <code>Cell</code> contains attributes such as a <code>Color</code> and <code>(x, y)</code> coordinates. Neighbors are worked out by the <code>CompactGrid</code> when they're needed. The state of a search lives in a <code>SearchContext</code>, not on the cells</p>
  */
 public class Cell {
 
@@ -32,39 +33,36 @@ public class Cell {
     public static final Color UNSEARCHABLE_CELL_COLOR = Color.BLACK;
 
     /**
-     * Maximum number of neighbors a corner <code>Cell</code> could have
-     */
-    public static final int NUM_CORNER_CELL_NEIGHBORS = 2;
-
-    /**
-     * Maximum number of neighbors a wall <code>Cell</code> could have
+     * Cost of going from one <code>Cell</code> to another
      */
-    public static final int NUM_WALL_CELL_NEIGHBORS = 3;
+    public static final int COST_TO_CELL = 1;
 
     /**
-     * Maximum number of neighbors an inner <code>Cell</code> could have
+     * Smallest width a <code>Cell</code> needs to be drawn with a border. Smaller cells would be all border
      */
-    public static final int NUM_INNER_CELL_NEIGHBORS = 4;
+    public static final int MIN_BORDERED_SIZE = 4;
 
     /**
-     * Cost of going from one <code>Cell</code> to another
+     * Name of the <code>Cell</code>
      */
-    public static final int COST_TO_CELL = 1;
+    private String name;
 
     /**
-     * Name of the <code>Cell</code>
+     * Color of this cell
      */
-    private String name;
+    private Color color;
 
     /**
-     * <code>ArrayList</code>> of neighbors
+     * Row of the <code>Cell</code> in its <code>Grid</code>'s map. The first row of its block if it stands for more
+     * than one map cell
      */
-    private ArrayList<Cell> neighbors;
+    private int row;
 
     /**
-     * Color of this cell
+     * Column of the <code>Cell</code> in its <code>Grid</code>'s map. The first column of its block if it stands for
+     * more than one map cell
      */
-    private Color color;
+    private int col;
 
     /**
      * <code>x</code> position of the <code>Cell</code>
@@ -87,74 +85,34 @@ public class Cell {
     private int height;
 
     /**
-     * Corner this <code>Cell</code> is in
-     *
-     * <p>TOP_LEFT, TOP_RIGHT, BOT_LEFT, BOT_RIGHT</p>
-     * <p>NONE if cell isn't in a corner</p>
+     * Journal color changes are recorded in, <code>null</code> if the <code>Cell</code> isn't part of a
+     * <code>Grid</code>
      */
-    private Grid.Corner corner;
+    private ChangeJournal journal;
 
     /**
-     * Wall this <code>Cell</code> is a part of
-     *
-     * <p>TOP, BOT, RIGHT, LEFT</p>
-     * <p>NONE if cell isn't a part of a wall</p>
+     * Id the <code>Cell</code> is recorded under in its {@link #journal}
      */
-    private Grid.Wall wall;
-
-    /**
-     * Parent <code>Cell</code>
-     *
-     * <p>Used for tracing a path</p>
-     */
-    private Cell parent;
-
-    /**
-     * f-cost of the <code>Cell</code>
-     *
-     * <p>f = g + h</p>
-     */
-    private double fCost;
-
-    /**
-     * g-cost of the <code>Cell</code>
-     *
-     * <p>g = cost of getting to this <code>Cell</code> from the initial <code>Cell</code> when searching</p>
-     */
-    private double gCost;
-
-    /**
-     * h-cost of the <code>Cell</code>
-     *
-     * <p>h = heuristic cost. Depends on the heuristic function used</p>
-     */
-    private double hCost;
-
-    /**
-     * Whether or not this <code>Cell</code> is a part of the path the <code>Searcher</code> finds
-     */
-    private boolean alongPath;
-
-    /**
-     * Number of times this <code>Cell</code> was reached when searching
-     *
-     * <p>Used for changing the color of the <code>Cell</code> if the <code>Searcher</code> looks at it again</p>
-     */
-    private int reachedCount;
+    private int id;
 
     /**
      * Constructs a new <code>Cell</code> at <code>(x, y)</code>
      *
      * @param name Name of the cell
+     * @param row row of the cell in its grid
+     * @param col column of the cell in its grid
      * @param x <code>x</code>-position of the cell
      * @param y <code>y</code>-position of the cell
      * @param width width of the cell
      * @param height height of the cell
      * @param color color of the cell
      */
-    public Cell(String name, int x, int y, int width, int height, Color color) {
+    public Cell(String name, int row, int col, int x, int y, int width, int height, Color color) {
         this.name = name;
 
+        this.row = row;
+        this.col = col;
+
         this.x = x;
         this.y = y;
 
@@ -172,11 +130,13 @@ public class Cell {
     public void render(Graphics2D g2d) {
         // fill cell with cell's color
         g2d.setColor(color);
-        g2d.fill(getCellBounds());
+        g2d.fillRect(x, y, width, height);
 
         // color cell border
-        g2d.setColor(Color.BLACK);
-        g2d.draw(getCellBounds());
+        if (width >= MIN_BORDERED_SIZE) {
+            g2d.setColor(Color.BLACK);
+            g2d.drawRect(x, y, width, height);
+        }
     }
 
     /**
@@ -186,6 +146,20 @@ public class Cell {
         return new Rectangle(x, y, width, height);
     }
 
+    /**
+     * @return row of the <code>Cell</code> in its <code>Grid</code>
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * @return column of the <code>Cell</code> in its <code>Grid</code>
+     */
+    public int getCol() {
+        return col;
+    }
+
     /**
      * @return <code>x</code>-position of the <code>Cell</code>
      */
@@ -213,94 +187,31 @@ public class Cell {
      * @param color new color of the <code>Cell</code>
      */
     public void setColor(Color color) {
-        this.color = color;
-    }
-
-    /**
-     * @return name of the <code>Cell</code>
-     */
-    public String getName() {
-        return name;
-    }
-
-    /**
-     * @return f-cost of the <code>Cell</code>
-     */
-    public double getFCost() {
-        return fCost;
-    }
-
-    /**
-     * Sets the current f-cost to a new f-cost
-     *
-     * @param fCost new f-cost
-     */
-    public void setFCost(double fCost) {
-        this.fCost = fCost;
-    }
-
-    /**
-     * @return g cost of the <code>Cell</code>
-     */
-    public double getGCost() {
-        return gCost;
-    }
+        if (color.equals(this.color))
+            return;
 
-    /**
-     * Sets the current g-cost to a new g-cost
-     *
-     * @param gCost new g-cost
-     */
-    public void setGCost(double gCost) {
-        this.gCost = gCost;
-    }
+        this.color = color;
 
-    /**
-     * @return h-cost of the <code>Cell</code>
-     */
-    public double getHCost() {
-        return hCost;
+        if (journal != null)
+            journal.record(id);
     }
 
     /**
-     * Sets the current h-cost to a new h-cost
+     * Records every change of color from now on
      *
-     * @param hCost new h-cost
-     */
-    public void setHCost(double hCost) {
-        this.hCost = hCost;
-    }
-
-    /**
-     * @return parent <code>Cell</code> of this <code>Cell</code>
+     * @param journal journal to record in
+     * @param id id to record the <code>Cell</code> under
      */
-    public Cell getParent() {
-        return parent;
+    void setJournal(ChangeJournal journal, int id) {
+        this.journal = journal;
+        this.id = id;
     }
 
     /**
-     * Sets the current parent to a new parent
-     *
-     * @param parent new parent of the <code>Cell</code>
-     */
-    public void setParent(Cell parent) {
-        this.parent = parent;
-    }
-
-    /**
-     * @return <code>ArrayList</code>> of neighbors
-     */
-    public ArrayList<Cell> getNeighbors() {
-        return neighbors;
-    }
-
-    /**
-     * Sets the current neighbors to a new list of neighbors
-     *
-     * @param neighbors new list of neighbors
+     * @return name of the <code>Cell</code>
      */
-    public void setNeighbors(ArrayList<Cell> neighbors) {
-        this.neighbors = neighbors;
+    public String getName() {
+        return name;
     }
 
     /**
@@ -333,81 +244,6 @@ public class Cell {
         return color.equals(CLEAR_CELL_COLOR) || isStart() || isGoal();
     }
 
-    /**
-     * A <code>Cell</code> is along a path if a <code>Searcher</code> chooses to to go to it
-     *
-     * @return whether or not this <code>Cell</code> is along a path a <code>Searcher</code> finds
-     */
-    public boolean isAlongPath() {
-        return alongPath;
-    }
-
-    /**
-     * Sets the current {@link #alongPath} to a new {@link #alongPath}
-     *
-     * @param alongPath new {@link #alongPath}
-     */
-    public void setAlongPath(boolean alongPath) {
-        this.alongPath = alongPath;
-    }
-
-    /**
-     * @return which <code>Corner</code> this <code>Cell</code> is in
-     */
-    public Grid.Corner getCorner() {
-        return corner;
-    }
-
-    /**
-     * Sets the <code>Corner</code> of this <code>Cell</code>
-     *
-     * @param corner new <code>Corner</code>
-     */
-    public void setCorner(Grid.Corner corner) {
-        this.corner = corner;
-    }
-
-    /**
-     * @return The <code>Wall</code> this <code>Cell</code> is a part of
-     */
-    public Grid.Wall getWall() {
-        return wall;
-    }
-
-    /**
-     * Sets the <code>Wall</code> of this <code>Cell</code>
-     *
-     * @param wall new <code>Wall</code>
-     */
-    public void setWall(Grid.Wall wall) {
-        this.wall = wall;
-    }
-
-    /**
-     * A <code>Cell</code> is an inner <code>Cell</code> if it is not in a corner and if it is not a part of a wall
-     *
-     * @return whether or not this <code>Cell</code> is an inner <code>Cell</code> or not
-     */
-    public boolean isInnerCell() {
-        return corner == Grid.Corner.NONE && wall == Grid.Wall.NONE;
-    }
-
-    /**
-     * @return number of times this <code>Cell</code> has been reached
-     */
-    public int getReachedCount() {
-        return reachedCount;
-    }
-
-    /**
-     * Sets the current {@link #reachedCount} to a new {@link #reachedCount}
-     *
-     * @param reachedCount new {@link #reachedCount}
-     */
-    public void setReachedCount(int reachedCount) {
-        this.reachedCount = reachedCount;
-    }
-
     /**
      * Checks if two <code>Cell</code> objects are equal to each others.
      * <code>Cell</code>'s are equal if their <code>(x, y)</code> coordinates
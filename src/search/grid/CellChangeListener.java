@@ -0,0 +1,18 @@
+package search.grid;
+
+/**
+ * Told about every cell of a {@link CompactGrid} whose walkability or terrain cost changes, so incremental searchers can repair their
+ * last search instead of starting over
+ *
+ * @see CompactGrid#addCellChangeListener(CellChangeListener)
+ */
+public interface CellChangeListener {
+
+    /**
+     * Called after a cell was made walkable or unwalkable, or its cost changed
+     *
+     * @param id id of the cell
+     */
+    void cellChanged(int id);
+
+}
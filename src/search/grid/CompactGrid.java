@@ -0,0 +1,732 @@
+package search.grid;
+
+import search.util.IntStack;
+
+import java.util.Arrays;
+
+/**
+ * A <code>CompactGrid</code> is the part of a map a <code>Searcher</code> actually needs: which cells can be walked on,
+ * and where the start and goal cells are. Walkability is packed into a bitset, one bit per cell, and cells are
+ * referred to by id (<code>row * cols + col</code>), so a 10,000x10,000 map fits in about 12 MB.
+ *
+ * <p>Cells can also have a terrain cost from {@link #MIN_COST} to {@link #MAX_COST}, one unsigned byte per cell. The
+ * bytes are only allocated once a cell costs something other than {@link #MIN_COST}, so maps without terrain stay one
+ * bit per cell. A move costs its orthogonal or diagonal length times the average of the costs of the two cells, so it
+ * costs the same both ways</p>
+ *
+ * <p>A map can have any number of goal cells. Searchers that look for the nearest of them stop at whichever
+ * {@link #isGoal(int)} reaches first. The rest go to the first goal cell, {@link #getGoal()}</p>
+ *
+ * <p>The dimensions of a <code>CompactGrid</code> never change. Searchers only ever read it, which lets any number of
+ * them share one instance; the cells are only written to while a map is being built or edited. Anything that keeps
+ * state about the walkability or costs can register a {@link CellChangeListener} to hear about those edits</p>
+ *
+ * @see Grid
+ */
+public class CompactGrid {
+
+    /**
+     * Which cells count as neighbors of a cell
+     */
+    public enum Connectivity {
+        /**
+         * The cells above, below, left and right
+         */
+        FOUR,
+
+        /**
+         * The four orthogonal cells plus the four diagonal cells. Whether a diagonal move may cut past the corner of a
+         * wall is up to the {@link CornerCutting}
+         */
+        EIGHT
+    }
+
+    /**
+     * When a diagonal move is allowed, going by the two orthogonal cells beside it
+     */
+    public enum CornerCutting {
+        /**
+         * Both orthogonal cells have to be walkable, so a move never clips a wall
+         */
+        NEVER,
+
+        /**
+         * At least one of them has to be walkable. A move can cut past the corner of a wall, but can't squeeze between
+         * two walls that touch at their corners
+         */
+        ONE_WALL,
+
+        /**
+         * Neither has to be walkable
+         */
+        ALWAYS
+    }
+
+    /**
+     * Most neighbors a cell can have
+     */
+    public static final int MAX_NEIGHBORS = 8;
+
+    /**
+     * Cost of a diagonal move
+     */
+    public static final double DIAGONAL_COST = Math.sqrt(2) * Cell.COST_TO_CELL;
+
+    /**
+     * Lowest terrain cost of a cell, the cost of every cell of a map without terrain
+     */
+    public static final int MIN_COST = 1;
+
+    /**
+     * Highest terrain cost of a cell
+     */
+    public static final int MAX_COST = 255;
+
+    /**
+     * Number of rows
+     */
+    private final int rows;
+
+    /**
+     * Number of columns
+     */
+    private final int cols;
+
+    /**
+     * One bit per cell, set if the cell is walkable
+     */
+    private final long[] walkable;
+
+    /**
+     * Terrain cost of each cell as an unsigned byte. <code>null</code> until a cell costs more than
+     * {@link #MIN_COST}
+     */
+    private byte[] costs;
+
+    /**
+     * Number of cells of each cost, created along with {@link #costs}
+     */
+    private int[] costCounts;
+
+    /**
+     * Id of the start cell, <code>-1</code> if there is none
+     */
+    private int start;
+
+    /**
+     * Ids of the goal cells in the order they were added
+     */
+    private int[] goals = new int[1];
+    private int goalCount;
+
+    /**
+     * One bit per cell, set if the cell is a goal cell. Only created once there is more than one goal cell, until then
+     * {@link #isGoal(int)} just compares with the only one
+     */
+    private long[] goalBits;
+
+    /**
+     * Which cells are neighbors
+     */
+    private Connectivity connectivity;
+
+    /**
+     * When diagonal moves may cut corners
+     */
+    private CornerCutting cornerCutting = CornerCutting.NEVER;
+
+    private CellChangeListener[] listeners = new CellChangeListener[0];
+
+    /**
+     * Number of changes made to the walkability, costs, connectivity, corner cutting and goal cells
+     */
+    private long version;
+
+    /**
+     * Constructs a <code>CompactGrid</code> where every cell is walkable and there is no start or goal cell
+     *
+     * @param rows number of rows
+     * @param cols number of columns
+     */
+    public CompactGrid(int rows, int cols) {
+        this(rows, cols, null, -1, -1);
+
+        setAllWalkable(true);
+    }
+
+    /**
+     * Constructs a <code>CompactGrid</code> over an existing walkability bitset
+     *
+     * @param rows number of rows
+     * @param cols number of columns
+     * @param walkable one bit per cell in id order, at least <code>(rows * cols + 63) / 64</code> words.
+     *                 <code>null</code> for a grid where no cell is walkable
+     * @param start id of the start cell, <code>-1</code> if there is none
+     * @param goal id of the goal cell, <code>-1</code> if there is none
+     */
+    public CompactGrid(int rows, int cols, long[] walkable, int start, int goal) {
+        if (rows <= 0 || cols <= 0)
+            throw new IllegalArgumentException("Grid must have at least one row and column: " + rows + "x" + cols);
+
+        long size = (long) rows * cols;
+        if (size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Grid is too big to index by int: " + rows + "x" + cols);
+
+        int words = wordCount((int) size);
+        if (walkable == null)
+            walkable = new long[words];
+        else if (walkable.length < words)
+            throw new IllegalArgumentException("Walkability bitset has " + walkable.length + " words, needs " + words);
+
+        this.rows = rows;
+        this.cols = cols;
+        this.walkable = walkable;
+        this.start = start;
+
+        if (goal >= 0)
+            addGoal(goal);
+
+        connectivity = Connectivity.FOUR;
+    }
+
+    /**
+     * Number of <code>long</code> words needed for a bitset of <code>size</code> cells
+     *
+     * @param size number of cells
+     * @return number of words
+     */
+    public static int wordCount(int size) {
+        return (int) (((long) size + 63) >>> 6);
+    }
+
+    /**
+     * Sets the state of a cell from the ARGB color a map file or a <code>Cell</code> uses for it
+     *
+     * @param id id of the cell
+     * @param argb color of the cell
+     */
+    public void setColor(int id, int argb) {
+        if (argb == Cell.START_CELL_COLOR.getRGB()) {
+            setWalkable(id, true);
+            start = id;
+
+            removeGoal(id);
+        } else if (argb == Cell.GOAL_CELL_COLOR.getRGB()) {
+            setWalkable(id, true);
+            addGoal(id);
+
+            if (id == start)
+                start = -1;
+        } else {
+            setWalkable(id, argb == Cell.CLEAR_CELL_COLOR.getRGB());
+
+            if (id == start)
+                start = -1;
+
+            removeGoal(id);
+        }
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * @return number of cells, <code>rows * cols</code>
+     */
+    public int size() {
+        return rows * cols;
+    }
+
+    /**
+     * @param row row of the cell
+     * @param col column of the cell
+     * @return id of the cell
+     */
+    public int getId(int row, int col) {
+        return row * cols + col;
+    }
+
+    public int getRow(int id) {
+        return id / cols;
+    }
+
+    public int getCol(int id) {
+        return id % cols;
+    }
+
+    /**
+     * @param id id of the cell
+     * @return whether or not the cell can be walked on
+     */
+    public boolean isWalkable(int id) {
+        return (walkable[id >>> 6] & (1L << id)) != 0;
+    }
+
+    /**
+     * Cells outside of the grid are never walkable
+     *
+     * @param row row of the cell
+     * @param col column of the cell
+     * @return whether or not the cell is inside the grid and can be walked on
+     */
+    public boolean isWalkable(int row, int col) {
+        return row >= 0 && row < rows && col >= 0 && col < cols && isWalkable(row * cols + col);
+    }
+
+    public void setWalkable(int id, boolean walkable) {
+        long word = this.walkable[id >>> 6];
+        long changed = walkable ? word | (1L << id) : word & ~(1L << id);
+
+        if (changed == word)
+            return;
+
+        this.walkable[id >>> 6] = changed;
+        version++;
+
+        for (CellChangeListener listener : listeners)
+            listener.cellChanged(id);
+    }
+
+    /**
+     * Makes every cell walkable or unwalkable. Doesn't change the start or goal cell
+     *
+     * @param walkable whether or not the cells can be walked on
+     */
+    public void setAllWalkable(boolean walkable) {
+        int size = size();
+        int full = size >>> 6;
+
+        for (int i = 0; i < full; i++)
+            setWord(i, walkable ? -1L : 0L);
+
+        // keep the bits past the last cell clear
+        if ((size & 63) != 0)
+            setWord(full, walkable ? (1L << size) - 1 : 0L);
+    }
+
+    /**
+     * Replaces a word of the walkability bitset, telling the listeners about every bit that changed
+     */
+    private void setWord(int index, long word) {
+        long changed = this.walkable[index] ^ word;
+        this.walkable[index] = word;
+
+        if (changed != 0)
+            version++;
+
+        for (long bits = changed; listeners.length > 0 && bits != 0; bits &= bits - 1) {
+            int id = (index << 6) + Long.numberOfTrailingZeros(bits);
+
+            for (CellChangeListener listener : listeners)
+                listener.cellChanged(id);
+        }
+    }
+
+    /**
+     * @param id id of the cell
+     * @return terrain cost of the cell, from {@link #MIN_COST} to {@link #MAX_COST}
+     */
+    public int getCost(int id) {
+        return (costs == null) ? MIN_COST : costs[id] & 0xFF;
+    }
+
+    /**
+     * Sets the terrain cost of a cell
+     *
+     * @param id id of the cell
+     * @param cost new cost, from {@link #MIN_COST} to {@link #MAX_COST}
+     */
+    public void setCost(int id, int cost) {
+        if (cost < MIN_COST || cost > MAX_COST)
+            throw new IllegalArgumentException("Cost must be in [" + MIN_COST + ", " + MAX_COST + "], was " + cost);
+
+        int old = getCost(id);
+        if (cost == old)
+            return;
+
+        if (costs == null) {
+            costs = new byte[size()];
+            Arrays.fill(costs, (byte) MIN_COST);
+
+            costCounts = new int[MAX_COST + 1];
+            costCounts[MIN_COST] = size();
+        }
+
+        costs[id] = (byte) cost;
+        costCounts[old]--;
+        costCounts[cost]++;
+        version++;
+
+        for (CellChangeListener listener : listeners)
+            listener.cellChanged(id);
+    }
+
+    /**
+     * @return whether or not every cell costs {@link #MIN_COST}, so a move costs only its length
+     */
+    public boolean hasUniformCosts() {
+        return costs == null || costCounts[MIN_COST] == size();
+    }
+
+    /**
+     * @return highest terrain cost of any cell
+     */
+    public int getMaxCost() {
+        if (costs == null)
+            return MIN_COST;
+
+        int max = MAX_COST;
+        while (costCounts[max] == 0)
+            max--;
+
+        return max;
+    }
+
+    /**
+     * @return the terrain costs, one unsigned byte per cell in id order, <code>null</code> if the costs have always
+     * been uniform. Shared, not copied
+     */
+    public byte[] getCostBytes() {
+        return costs;
+    }
+
+    /**
+     * Registers a listener to be told about every cell whose walkability or cost changes from now on. Changes made
+     * straight to the bitset returned by {@link #getWalkableBits()} aren't seen
+     *
+     * @param listener listener to add
+     */
+    public void addCellChangeListener(CellChangeListener listener) {
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+    }
+
+    public void removeCellChangeListener(CellChangeListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                CellChangeListener[] rest = new CellChangeListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, rest, 0, i);
+                System.arraycopy(listeners, i + 1, rest, i, rest.length - i);
+                listeners = rest;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes the ids of the walkable neighbors of a cell into <code>out</code>. Neighbors are worked out from the
+     * cell's coordinates and the walkability bits every time, nothing is stored per cell
+     *
+     * @param id id of the cell
+     * @param out array of at least {@link #MAX_NEIGHBORS} elements to write the neighbor ids into
+     * @return number of neighbors written
+     */
+    public int neighbors(int id, int[] out) {
+        int row = id / cols;
+        int col = id - row * cols;
+        int count = 0;
+
+        boolean top = row > 0 && isWalkable(id - cols);
+        boolean bot = row < rows - 1 && isWalkable(id + cols);
+        boolean right = col < cols - 1 && isWalkable(id + 1);
+        boolean left = col > 0 && isWalkable(id - 1);
+
+        if (top)
+            out[count++] = id - cols;
+
+        if (bot)
+            out[count++] = id + cols;
+
+        if (right)
+            out[count++] = id + 1;
+
+        if (left)
+            out[count++] = id - 1;
+
+        if (connectivity == Connectivity.EIGHT) {
+            boolean hasTop = row > 0;
+            boolean hasBot = row < rows - 1;
+            boolean hasRight = col < cols - 1;
+            boolean hasLeft = col > 0;
+
+            if (hasTop && hasRight && isCornerOpen(top, right) && isWalkable(id - cols + 1))
+                out[count++] = id - cols + 1;
+
+            if (hasTop && hasLeft && isCornerOpen(top, left) && isWalkable(id - cols - 1))
+                out[count++] = id - cols - 1;
+
+            if (hasBot && hasRight && isCornerOpen(bot, right) && isWalkable(id + cols + 1))
+                out[count++] = id + cols + 1;
+
+            if (hasBot && hasLeft && isCornerOpen(bot, left) && isWalkable(id + cols - 1))
+                out[count++] = id + cols - 1;
+        }
+
+        return count;
+    }
+
+    /**
+     * @param first whether or not one of the orthogonal cells beside a diagonal move is walkable
+     * @param second whether or not the other one is
+     * @return whether or not the {@link CornerCutting} lets the move through. With four neighbors both have to be
+     * walkable, the only way around the corner
+     */
+    private boolean isCornerOpen(boolean first, boolean second) {
+        if (connectivity == Connectivity.FOUR)
+            return first && second;
+
+        switch (cornerCutting) {
+            case NEVER:
+                return first && second;
+            case ONE_WALL:
+                return first || second;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Whether or not the straight line between the centers of two cells only crosses walkable cells. A line that
+     * passes exactly through the corner where four cells meet goes between the two it doesn't cross, which the
+     * {@link CornerCutting} has to allow just like a diagonal move
+     *
+     * <p>The line is walked one cell at a time with Bresenham-style integer steps, every cell it touches and nothing
+     * else, looking at one walkability bit per cell</p>
+     *
+     * @param from id of the cell the line starts at
+     * @param to id of the cell the line ends at
+     * @return whether or not the line is clear
+     */
+    public boolean hasLineOfSight(int from, int to) {
+        return walkLine(from, to, null);
+    }
+
+    /**
+     * Walks the line between the centers of two cells like {@link #hasLineOfSight(int, int)}, pushing the cells it
+     * crosses
+     *
+     * @param from id of the cell the line starts at
+     * @param to id of the cell the line ends at
+     * @param cells stack to push the cells onto, from <code>from</code> to <code>to</code>. Each one is a neighbor of
+     *              the one before; with four neighbors a cell beside the corner is added wherever the line goes
+     *              through one. Left holding part of the line if it isn't clear
+     * @return whether or not the line is clear
+     */
+    public boolean walkLine(int from, int to, IntStack cells) {
+        int row = getRow(from);
+        int col = getCol(from);
+        int lastRow = getRow(to);
+        int lastCol = getCol(to);
+
+        int dRow = Math.abs(lastRow - row);
+        int dCol = Math.abs(lastCol - col);
+        int stepRow = Integer.signum(lastRow - row);
+        int stepCol = Integer.signum(lastCol - col);
+
+        if (!isWalkable(from))
+            return false;
+
+        if (cells != null)
+            cells.push(from);
+
+        // twice how far the line is past the center of the current cell, columns against rows
+        int error = dCol - dRow;
+
+        while (row != lastRow || col != lastCol) {
+            if (error > 0) {
+                col += stepCol;
+                error -= 2 * dRow;
+            } else if (error < 0) {
+                row += stepRow;
+                error += 2 * dCol;
+            } else {
+                // exactly through a corner
+                boolean beside = isWalkable(row, col + stepCol);
+
+                if (!isCornerOpen(beside, isWalkable(row + stepRow, col)))
+                    return false;
+
+                if (connectivity == Connectivity.FOUR && cells != null)
+                    cells.push(getId(row, col + stepCol));
+
+                row += stepRow;
+                col += stepCol;
+                error += 2 * (dCol - dRow);
+            }
+
+            if (!isWalkable(row, col))
+                return false;
+
+            if (cells != null)
+                cells.push(getId(row, col));
+        }
+
+        return true;
+    }
+
+    /**
+     * Cost of moving between two neighboring cells
+     *
+     * @param from id of the cell moved from
+     * @param to id of the neighboring cell moved to
+     * @return {@link Cell#COST_TO_CELL} for an orthogonal move, {@link #DIAGONAL_COST} for a diagonal one, times the
+     * average terrain cost of the two cells
+     */
+    public double moveCost(int from, int to) {
+        boolean diagonal = from / cols != to / cols && from % cols != to % cols;
+        double length = diagonal ? DIAGONAL_COST : Cell.COST_TO_CELL;
+
+        if (costs == null)
+            return length;
+
+        return length * ((costs[from] & 0xFF) + (costs[to] & 0xFF)) / 2;
+    }
+
+    public Connectivity getConnectivity() {
+        return connectivity;
+    }
+
+    public void setConnectivity(Connectivity connectivity) {
+        if (connectivity != this.connectivity)
+            version++;
+
+        this.connectivity = connectivity;
+    }
+
+    public CornerCutting getCornerCutting() {
+        return cornerCutting;
+    }
+
+    /**
+     * Sets when diagonal moves may cut corners. Only matters with eight neighbors
+     *
+     * @param cornerCutting new rule
+     */
+    public void setCornerCutting(CornerCutting cornerCutting) {
+        if (cornerCutting != this.cornerCutting)
+            version++;
+
+        this.cornerCutting = cornerCutting;
+    }
+
+    /**
+     * @return a number that goes up whenever the walkability, costs, connectivity, corner cutting or goal cells change,
+     * so anything worked out from them can be kept until it does. Moving the start cell doesn't change it, and neither
+     * do changes made straight to the bitset returned by {@link #getWalkableBits()}
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the walkability bitset, one bit per cell in id order. Shared, not copied
+     */
+    public long[] getWalkableBits() {
+        return walkable;
+    }
+
+    /**
+     * @return id of the start cell, <code>-1</code> if there is none
+     */
+    public int getStart() {
+        return start;
+    }
+
+    public void setStart(int start) {
+        this.start = start;
+    }
+
+    /**
+     * @return id of the first goal cell, <code>-1</code> if there is none
+     */
+    public int getGoal() {
+        return (goalCount > 0) ? goals[0] : -1;
+    }
+
+    /**
+     * Makes a cell the only goal cell
+     *
+     * @param goal id of the new goal cell, <code>-1</code> for no goal cell
+     */
+    public void setGoal(int goal) {
+        while (goalCount > 0)
+            removeGoal(goals[goalCount - 1]);
+
+        if (goal >= 0)
+            addGoal(goal);
+    }
+
+    /**
+     * Makes a cell a goal cell as well as the ones there already are
+     *
+     * @param id id of the cell
+     */
+    public void addGoal(int id) {
+        if (isGoal(id))
+            return;
+
+        if (goalCount == goals.length)
+            goals = Arrays.copyOf(goals, 2 * goalCount);
+
+        goals[goalCount++] = id;
+        version++;
+
+        if (goalBits == null && goalCount > 1) {
+            goalBits = new long[wordCount(size())];
+
+            for (int i = 0; i < goalCount; i++)
+                goalBits[goals[i] >>> 6] |= 1L << goals[i];
+        } else if (goalBits != null) {
+            goalBits[id >>> 6] |= 1L << id;
+        }
+    }
+
+    /**
+     * Stops a cell being a goal cell. The other goal cells keep their order
+     *
+     * @param id id of the cell
+     */
+    public void removeGoal(int id) {
+        if (!isGoal(id))
+            return;
+
+        int i = 0;
+        while (goals[i] != id)
+            i++;
+
+        System.arraycopy(goals, i + 1, goals, i, goalCount - i - 1);
+        goalCount--;
+        version++;
+
+        if (goalBits != null)
+            goalBits[id >>> 6] &= ~(1L << id);
+    }
+
+    public int getGoalCount() {
+        return goalCount;
+    }
+
+    /**
+     * @return ids of the goal cells in the order they were added. A copy
+     */
+    public int[] getGoals() {
+        return Arrays.copyOf(goals, goalCount);
+    }
+
+    public boolean isStart(int id) {
+        return id == start;
+    }
+
+    public boolean isGoal(int id) {
+        if (goalBits == null)
+            return goalCount > 0 && id == goals[0];
+
+        return (goalBits[id >>> 6] & (1L << id)) != 0;
+    }
+
+}
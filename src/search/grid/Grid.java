@@ -1,11 +1,23 @@
 package search.grid;
 
+import search.util.ChangeJournal;
+
 import java.awt.*;
-import java.util.ArrayList;
 
 /**
- * A <code>Grid</code> represents an NxN matrix full of <code>Cells</code>. A <code>Grid</code> creates <code>Cells</code>
+ * A <code>Grid</code> represents a matrix full of <code>Cells</code>. A <code>Grid</code> creates <code>Cells</code>
  * that can be manipulated by a <code>Searcher</code>
+ *
+ * <p>The <code>Cells</code> are a view over a {@link CompactGrid}, which holds what searching needs. Edits made through
+ * {@link #setCellColor(Cell, Color)} and {@link #clear()} are written through to it</p>
+ *
+ * <p>Maps can be any size. When a map has more rows or columns than fit in {@link #GRID_SIZE} pixels, every
+ * <code>Cell</code> stands for a <code>scale x scale</code> block of map cells and is drawn one pixel wide, so a
+ * <code>Grid</code> never holds more than <code>GRID_SIZE * GRID_SIZE</code> <code>Cells</code></p>
+ *
+ * <p>Every change of a <code>Cell</code>'s color is recorded in the {@link #getJournal() journal} under the id of the
+ * <code>Cell</code>, so renderers can redraw only what changed with {@link #render(Graphics2D, ChangeJournal.Cursor)}.
+ * Changes to the walkability of the map are reported separately, to {@link CellChangeListener}s</p>
  */
 public class Grid {
 
@@ -33,46 +45,39 @@ public class Grid {
     public static final int MIN_GRID_ROWS = 5;
 
     /**
-     * Maximum number of <code>Grid</code> rows/cols
+     * Most changes the journal holds. A renderer that falls further behind than this redraws everything
      */
-    public static final int MAX_GRID_ROWS = 100;
+    public static final int MAX_JOURNAL_CAPACITY = 1 << 16;
 
     /**
-     * Enum used to show which corner a <code>Cell</code> is in
+     * 2D-Array of Cells representing a <code>Grid</code>. Has one <code>Cell</code> per block of map cells
      */
-    public enum Corner {
-        TOP_LEFT,
-        TOP_RIGHT,
-        BOT_LEFT,
-        BOT_RIGHT,
-        NONE
-    }
+    private Cell[][] grid;
 
     /**
-     * Enum used to show which wall a <code>Cell</code> is in
+     * Number of rows in the map
      */
-    public enum Wall {
-        TOP,
-        BOT,
-        LEFT,
-        RIGHT,
-        NONE
-    }
+    private int rows;
 
     /**
-     * 2D-Array of Cells representing a <code>Grid</code>
+     * Number of columns in the map
      */
-    private Cell[][] grid;
+    private int cols;
 
     /**
-     * Number of rows in this <code>Grid</code>
+     * Number of map rows and columns each <code>Cell</code> stands for
      */
-    private int rows;
+    private int scale;
 
     /**
-     * Number of columns in this <code>Grid</code>
+     * Number of rows of <code>Cells</code>
      */
-    private int cols;
+    private int viewRows;
+
+    /**
+     * Number of columns of <code>Cells</code>
+     */
+    private int viewCols;
 
     /**
      * Width of a cell
@@ -85,14 +90,9 @@ public class Grid {
     private int height;
 
     /**
-     * Goal cell. Used by a <code>Searcher</code> which lets it know when to stop searching.
+     * Walkability, start and goal of every cell
      */
-    private Cell goal;
-
-    /**
-     * Start cell. Used by a <code>Searcher</code> which lets it know which cell to start in.
-     */
-    private Cell start;
+    private CompactGrid map;
 
     /**
      * The color that is selected when building a map
@@ -102,284 +102,273 @@ public class Grid {
     private boolean startCellExists;
     private boolean goalCellExists;
 
-    public Grid(int rows, int cols, int[][] colors, boolean createGraph) {
-        grid = new Cell[rows][cols];
+    /**
+     * Ids of the <code>Cells</code> whose color changed
+     */
+    private ChangeJournal journal;
+
+    /**
+     * Scratch buffer for the ids drained by {@link #render(Graphics2D, ChangeJournal.Cursor)}
+     */
+    private final int[] renderBuffer = new int[1024];
 
-        this.rows = rows;
-        this.cols = cols;
+    /**
+     * Constructs a <code>Grid</code> whose <code>Cells</code> are a view over a <code>CompactGrid</code>.
+     * Any number of grids can be built over the same <code>CompactGrid</code>
+     *
+     * @param map walkability, start and goal of every cell
+     */
+    public Grid(CompactGrid map) {
+        this.map = map;
 
-        width = GRID_SIZE / rows;
-        height = GRID_SIZE / cols;
+        this.rows = map.getRows();
+        this.cols = map.getCols();
 
-        selectedCellColor = Cell.UNSEARCHABLE_CELL_COLOR;
+        // cells are square and the longer side fits in GRID_SIZE pixels
+        int longest = Math.max(rows, cols);
+        scale = (longest + GRID_SIZE - 1) / GRID_SIZE;
 
-        createCells(colors);
+        viewRows = (rows + scale - 1) / scale;
+        viewCols = (cols + scale - 1) / scale;
 
-        if (createGraph)
-            setCellNeighbors();
-    }
+        grid = new Cell[viewRows][viewCols];
 
-    private void createCells(int[][] colors) {
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                Color c = (colors == null) ? Cell.CLEAR_CELL_COLOR : new Color(colors[i][j], true);
-                String name = ((i * rows) + j) + "";
+        width = Math.max(1, GRID_SIZE / longest);
+        height = width;
 
-                grid[i][j] = new Cell(name, j * width, i * height, width, height, c);
-                grid[i][j].setCorner(getCorner(i, j));
-                grid[i][j].setWall(getWall(i, j));
+        selectedCellColor = Cell.UNSEARCHABLE_CELL_COLOR;
 
-                if (grid[i][j].isStart())
-                    start = grid[i][j];
-                else if (grid[i][j].isGoal())
-                    goal = grid[i][j];
-            }
-        }
+        journal = new ChangeJournal(Math.min(viewRows * viewCols, MAX_JOURNAL_CAPACITY));
+
+        createCells();
     }
 
-    private void setCellNeighbors() {
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                Cell cell = getCell(i, j);
+    private void createCells() {
+        for (int i = 0; i < viewRows; i++) {
+            for (int j = 0; j < viewCols; j++) {
+                int row = i * scale;
+                int col = j * scale;
+                String name = map.getId(row, col) + "";
 
-                if (cell.isSearchable()) {
-                    if (isCorner(i, j))
-                        setCornerCellNeighbors(i, j);
-                    else if (cell.getWall() != Wall.NONE)
-                        setWallCellNeighbors(i, j);
-                    else if (cell.isInnerCell())
-                        setInnerCellNeighbors(i, j);
-                }
+                grid[i][j] = new Cell(name, row, col, j * width, i * height, width, height, getBlockColor(row, col));
+                grid[i][j].setJournal(journal, map.getId(row, col));
             }
         }
     }
 
-    private Corner getCorner(int row, int col) {
-        if (row == 0 && col == 0)
-            return Corner.TOP_LEFT;
-
-        if (row == 0 && col == cols - 1)
-            return Corner.TOP_RIGHT;
-
-        if (row == rows - 1 && col == 0)
-            return Corner.BOT_LEFT;
+    /**
+     * Color of the block of map cells a <code>Cell</code> stands for: the start or goal color if the block holds the
+     * start or a goal cell, clear if any of its cells are walkable, unsearchable otherwise
+     *
+     * @param row first row of the block
+     * @param col first column of the block
+     * @return color of the block
+     */
+    private Color getBlockColor(int row, int col) {
+        if (scale == 1)
+            return getMapColor(map.getId(row, col));
 
-        if (row == rows - 1 && col == cols - 1)
-            return Corner.BOT_RIGHT;
+        int start = map.getStart();
 
-        return Corner.NONE;
-    }
+        if (start >= 0 && isInBlock(start, row, col))
+            return Cell.START_CELL_COLOR;
 
-    private boolean isCorner(int row, int col) {
-        return getCorner(row, col) != Corner.NONE;
-    }
+        int lastRow = Math.min(row + scale, rows);
+        int lastCol = Math.min(col + scale, cols);
 
-    private Wall getWall(int row, int col) {
-        if (isCorner(row, col))
-            return Wall.NONE;
+        // a goal cell anywhere in the block wins over a walkable one, so with goal cells the whole block is looked at
+        boolean hasGoals = map.getGoalCount() > 0;
+        boolean walkable = false;
 
-        if (row == 0)
-            return Wall.TOP;
+        for (int i = row; i < lastRow; i++) {
+            for (int j = col; j < lastCol; j++) {
+                int id = map.getId(i, j);
 
-        if (row == rows - 1)
-            return Wall.BOT;
+                if (hasGoals && map.isGoal(id))
+                    return Cell.GOAL_CELL_COLOR;
 
-        if (col == 0)
-            return Wall.LEFT;
+                if (map.isWalkable(id)) {
+                    if (!hasGoals)
+                        return Cell.CLEAR_CELL_COLOR;
 
-        if (col == cols - 1)
-            return Wall.RIGHT;
+                    walkable = true;
+                }
+            }
+        }
 
-        return Wall.NONE;
+        return walkable ? Cell.CLEAR_CELL_COLOR : Cell.UNSEARCHABLE_CELL_COLOR;
     }
 
-    private Cell getTopCell(int row, int col) {
-        int topRow = row - 1;
-        if ((topRow >= rows || topRow < 0) || (col >= cols | col < 0))
-            return null;
-
-        return getCell(topRow, col);
+    private boolean isInBlock(int id, int row, int col) {
+        int r = map.getRow(id);
+        int c = map.getCol(id);
+        return r >= row && r < row + scale && c >= col && c < col + scale;
     }
 
-    private Cell getBotCell(int row, int col) {
-        int botRow = row + 1;
-        if ((botRow >= rows || botRow < 0) || (col >= cols | col < 0))
-            return null;
-
-        return getCell(botRow, col);
-    }
+    /**
+     * Color of a single map cell as it is stored in a map file
+     *
+     * @param id id of the cell
+     * @return the start or goal color for the start or goal cell, otherwise clear if the cell is walkable and
+     * unsearchable if it isn't
+     */
+    public Color getMapColor(int id) {
+        if (map.isStart(id))
+            return Cell.START_CELL_COLOR;
 
-    private Cell getRightCell(int row, int col) {
-        int rightCol = col + 1;
-        if ((row >= rows || row < 0) || (rightCol >= cols | rightCol < 0))
-            return null;
+        if (map.isGoal(id))
+            return Cell.GOAL_CELL_COLOR;
 
-        return getCell(row, rightCol);
+        return map.isWalkable(id) ? Cell.CLEAR_CELL_COLOR : Cell.UNSEARCHABLE_CELL_COLOR;
     }
 
-    private Cell getLeftCell(int row, int col) {
-        int leftCol = col - 1;
-        if ((row >= rows || row < 0) || (leftCol >= cols | leftCol < 0))
-            return null;
-
-        return getCell(row, leftCol);
+    public void render(Graphics2D g2d) {
+        for (int i = 0; i < viewRows; i++) {
+            for (int j = 0; j < viewCols; j++) {
+                grid[i][j].render(g2d);
+            }
+        }
     }
 
-    private void setCornerCellNeighbors(int i, int j) {
-        ArrayList<Cell> neighbors = new ArrayList<>(Cell.NUM_CORNER_CELL_NEIGHBORS);
-        Corner corner = getCell(i, j).getCorner();
-
-        Cell top = getTopCell(i, j);
-        Cell bot = getBotCell(i, j);
-        Cell right = getRightCell(i, j);
-        Cell left = getLeftCell(i, j);
-
-        boolean addTop = top != null && top.isSearchable();
-        boolean addBot = bot != null && bot.isSearchable();
-        boolean addRight = right != null && right.isSearchable();
-        boolean addLeft = left != null && left.isSearchable();
-
-        if (corner == Corner.TOP_LEFT) {
-            if (addBot)
-                neighbors.add(bot);
-
-            if (addRight)
-                neighbors.add(right);
-        } else if (corner == Corner.TOP_RIGHT) {
-            if (addBot)
-                neighbors.add(bot);
-
-            if (addLeft)
-                neighbors.add(left);
-        } else if (corner == Corner.BOT_LEFT) {
-            if (addTop)
-                neighbors.add(top);
-
-            if (addRight)
-                neighbors.add(right);
-        } else if (corner == Corner.BOT_RIGHT) {
-            if (addTop)
-                neighbors.add(top);
+    /**
+     * Draws the <code>Cells</code> that changed color since <code>cursor</code> was last drained, or every
+     * <code>Cell</code> if the journal lost track of some. Whatever was drawn before has to still be there
+     *
+     * @param g2d graphics context to render with
+     * @param cursor cursor of the renderer, subscribed to {@link #getJournal()}
+     */
+    public void render(Graphics2D g2d, ChangeJournal.Cursor cursor) {
+        int count;
+        while ((count = cursor.drain(renderBuffer)) != 0) {
+            if (count == ChangeJournal.OVERFLOW) {
+                render(g2d);
+                continue;
+            }
 
-            if (addLeft)
-                neighbors.add(left);
+            for (int i = 0; i < count; i++)
+                getCell(renderBuffer[i]).render(g2d);
         }
-
-        getCell(i, j).setNeighbors(neighbors);
     }
 
-    private void setWallCellNeighbors(int i, int j) {
-        ArrayList<Cell> neighbors = new ArrayList<>(Cell.NUM_WALL_CELL_NEIGHBORS);
-        Wall wall = getCell(i, j).getWall();
-
-        Cell top = getTopCell(i, j);
-        Cell bot = getBotCell(i, j);
-        Cell right = getRightCell(i, j);
-        Cell left = getLeftCell(i, j);
-
-        boolean addTop = top != null && top.isSearchable();
-        boolean addBot = bot != null && bot.isSearchable();
-        boolean addRight = right != null && right.isSearchable();
-        boolean addLeft = left != null && left.isSearchable();
-
-        if (wall == Wall.TOP) {
-            if (addBot)
-                neighbors.add(bot);
-
-            if (addLeft)
-                neighbors.add(left);
-
-            if (addRight)
-                neighbors.add(right);
-        } else if (wall == Wall.BOT) {
-            if (addTop)
-                neighbors.add(top);
-
-            if (addLeft)
-                neighbors.add(left);
+    public void clear() {
+        for (int i = 0; i < viewRows; i++) {
+            for (int j = 0; j < viewCols; j++) {
+                grid[i][j].setColor(Cell.CLEAR_CELL_COLOR);
+            }
+        }
 
-            if (addRight)
-                neighbors.add(right);
-        } else if (wall == Wall.RIGHT) {
-            if (addTop)
-                neighbors.add(top);
+        map.setAllWalkable(true);
+        map.setStart(-1);
+        map.setGoal(-1);
 
-            if (addBot)
-                neighbors.add(bot);
+        startCellExists = false;
+        goalCellExists = false;
+    }
 
-            if (addLeft)
-                neighbors.add(left);
-        } else if (wall == Wall.LEFT) {
-            if (addTop)
-                neighbors.add(top);
+    /**
+     * Colors a <code>Cell</code> and updates the <code>CompactGrid</code> to match: clear, start and goal cells are
+     * walkable, anything else isn't. Every map cell in the <code>Cell</code>'s block is updated
+     *
+     * @param cell cell to color
+     * @param color new color of the cell
+     */
+    public void setCellColor(Cell cell, Color color) {
+        cell.setColor(color);
 
-            if (addBot)
-                neighbors.add(bot);
+        int argb = color.getRGB();
+        int lastRow = Math.min(cell.getRow() + scale, rows);
+        int lastCol = Math.min(cell.getCol() + scale, cols);
 
-            if (addRight)
-                neighbors.add(right);
+        for (int i = cell.getRow(); i < lastRow; i++) {
+            for (int j = cell.getCol(); j < lastCol; j++)
+                map.setColor(map.getId(i, j), argb);
         }
-
-        getCell(i, j).setNeighbors(neighbors);
     }
 
-    private void setInnerCellNeighbors(int i, int j) {
-        ArrayList<Cell> neighbors = new ArrayList<>(Cell.NUM_INNER_CELL_NEIGHBORS);
+    /**
+     * Sets the color of a <code>Cell</code> back to what its map cells hold, dropping anything only drawn on it such
+     * as a path
+     *
+     * @param cell cell to reset
+     */
+    public void resetCellColor(Cell cell) {
+        cell.setColor(getBlockColor(cell.getRow(), cell.getCol()));
+    }
 
-        Cell top = getTopCell(i, j);
-        Cell bot = getBotCell(i, j);
-        Cell right = getRightCell(i, j);
-        Cell left = getLeftCell(i, j);
+    /**
+     * Registers a listener to be told about every map cell whose walkability changes, including the edits made
+     * through {@link #setCellColor(Cell, Color)} and {@link #clear()}
+     *
+     * @param listener listener to add
+     */
+    public void addCellChangeListener(CellChangeListener listener) {
+        map.addCellChangeListener(listener);
+    }
 
-        boolean addTop = top != null && top.isSearchable();
-        boolean addBot = bot != null && bot.isSearchable();
-        boolean addRight = right != null && right.isSearchable();
-        boolean addLeft = left != null && left.isSearchable();
+    public void removeCellChangeListener(CellChangeListener listener) {
+        map.removeCellChangeListener(listener);
+    }
 
-        if (addTop)
-            neighbors.add(top);
+    /**
+     * @param row row of a map cell
+     * @param col column of a map cell
+     * @return the <code>Cell</code> that shows the map cell
+     */
+    public Cell getCell(int row, int col) {
+        return grid[row / scale][col / scale];
+    }
 
-        if (addBot)
-            neighbors.add(bot);
+    /**
+     * @param id id of a map cell, <code>row * cols + col</code>
+     * @return the <code>Cell</code> that shows the map cell
+     */
+    public Cell getCell(int id) {
+        return getCell(id / cols, id % cols);
+    }
 
-        if (addRight)
-            neighbors.add(right);
+    /**
+     * @param x <code>x</code>-position in pixels
+     * @param y <code>y</code>-position in pixels
+     * @return the <code>Cell</code> drawn at <code>(x, y)</code>, <code>null</code> if there is none
+     */
+    public Cell getCellAt(int x, int y) {
+        if (x < 0 || y < 0)
+            return null;
 
-        if (addLeft)
-            neighbors.add(left);
+        int i = y / height;
+        int j = x / width;
 
-        getCell(i, j).setNeighbors(neighbors);
+        return (i < viewRows && j < viewCols) ? grid[i][j] : null;
     }
 
-    public void render(Graphics2D g2d) {
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                grid[i][j].render(g2d);
-            }
-        }
+    /**
+     * Cell ids are dense, <code>row * cols + col</code>, so they can index flat arrays. When a <code>Cell</code>
+     * stands for a block of map cells this is the id of the first one
+     *
+     * @param cell cell to get the id of
+     * @return id of the cell
+     */
+    public int getCellId(Cell cell) {
+        return cell.getRow() * cols + cell.getCol();
     }
 
-    public void clear() {
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                grid[i][j].setColor(Cell.CLEAR_CELL_COLOR);
-            }
-        }
-
-        startCellExists = false;
-        goalCellExists = false;
+    public Cell getStartCell() {
+        return (map.getStart() < 0) ? null : getCell(map.getStart());
     }
 
-    public Cell getCell(int row, int col) {
-        return grid[row][col];
+    public Cell getGoalCell() {
+        return (map.getGoal() < 0) ? null : getCell(map.getGoal());
     }
 
-    public Cell getStartCell() {
-        return start;
+    public CompactGrid getMap() {
+        return map;
     }
 
-    public Cell getGoalCell() {
-        return goal;
+    /**
+     * @return journal of the <code>Cells</code> whose color changed, each recorded under its id
+     */
+    public ChangeJournal getJournal() {
+        return journal;
     }
 
     public int getRows() {
@@ -390,6 +379,28 @@ public class Grid {
         return cols;
     }
 
+    /**
+     * @return number of map rows and columns each <code>Cell</code> stands for, <code>1</code> unless the map is
+     * bigger than {@link #GRID_SIZE}
+     */
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * @return width in pixels of the whole <code>Grid</code>
+     */
+    public int getViewWidth() {
+        return viewCols * width;
+    }
+
+    /**
+     * @return height in pixels of the whole <code>Grid</code>
+     */
+    public int getViewHeight() {
+        return viewRows * height;
+    }
+
     public int getWidth() {
         return width;
     }
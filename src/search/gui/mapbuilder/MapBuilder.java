@@ -1,6 +1,7 @@
 package search.gui.mapbuilder;
 
 import search.SearcherFileReader;
+import search.grid.CompactGrid;
 
 import javax.swing.*;
 import java.awt.*;
@@ -10,32 +11,21 @@ public class MapBuilder {
 
     /* Commenting to test git stuff 21230390 */
     public MapBuilder(String title, int rows, int cols, File file) {
-        SearcherFileReader fileReader = SearcherFileReader.readFile(file);
+        CompactGrid map = SearcherFileReader.readMap(file);
+        if (map == null)
+            map = new CompactGrid(rows, cols);
 
-        int gridRows = rows;
-        int gridCols = cols;
-
-        boolean startCellExists = false;
-        boolean goalCellExists = false;
-
-        int[][] colors = null;
-
-        if (fileReader != null) {
-            gridRows = fileReader.getGridRows();
-            gridCols = fileReader.getGridCols();
-
-            startCellExists = fileReader.getStartCellExists();
-            goalCellExists = fileReader.getGoalCellExists();
-
-            colors = fileReader.getColors();
-        }
-
-        MapBuilderGrid grid = new MapBuilderGrid(gridRows, gridCols, colors, startCellExists, goalCellExists);
+        MapBuilderGrid grid = new MapBuilderGrid(map);
 
         int gridWidth = grid.getWidth();
         int gridHeight = grid.getHeight();
 
-        String fileName = (file != null) ? file.getName().substring(0, file.getName().length() - ".txt".length()) : null;
+        String fileName = null;
+        if (file != null) {
+            int dot = file.getName().lastIndexOf('.');
+            fileName = (dot < 0) ? file.getName() : file.getName().substring(0, dot);
+        }
+
         MapBuilderLegend legend = new MapBuilderLegend(grid.getGrid(), grid, MapBuilderLegend.WIDTH, gridHeight, fileName);
 
         int frameWidth = gridWidth + MapBuilderLegend.WIDTH;
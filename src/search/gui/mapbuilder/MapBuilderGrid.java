@@ -1,7 +1,12 @@
 package search.gui.mapbuilder;
 
 import search.grid.Cell;
+import search.grid.CompactGrid;
 import search.grid.Grid;
+import search.pathfinder.PathResult;
+import search.pathfinder.Searcher;
+import search.pathfinder.heuristic.LifelongPlanningAStarSearcher;
+import search.util.ChangeJournal;
 
 import javax.swing.*;
 import java.awt.*;
@@ -13,21 +18,43 @@ public class MapBuilderGrid extends JPanel implements MouseMotionListener, Mouse
     private BufferedImage img;
     private Grid grid;
 
+    /**
+     * Cells that changed since the image was last drawn onto. Only those are drawn again
+     */
+    private ChangeJournal.Cursor changes;
+    private boolean drawn;
+
     private int width;
     private int height;
 
-    public MapBuilderGrid(int rows, int cols, int[][] colors, boolean startCellExists, boolean goalCellExists) {
+    /**
+     * Keeps the path between the start and goal cells up to date while the map is edited. It hears about every edit
+     * through the <code>Grid</code>, so each update only repairs what changed
+     */
+    private LifelongPlanningAStarSearcher planner;
+
+    /**
+     * Cell ids of the path being shown
+     */
+    private int[] shownPath = new int[0];
+
+    public MapBuilderGrid(CompactGrid map) {
         super();
 
-        int cellSize = Grid.GRID_SIZE / rows;
-        this.width = cellSize * rows;
-        this.height = cellSize * cols;
+        grid = new Grid(map);
+        grid.setStartCellExists(map.getStart() >= 0);
+        grid.setGoalCellExists(map.getGoal() >= 0);
+
+        this.width = grid.getViewWidth();
+        this.height = grid.getViewHeight();
 
         img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        changes = grid.getJournal().subscribe();
 
-        grid = new Grid(rows, cols, colors, false);
-        grid.setStartCellExists(startCellExists);
-        grid.setGoalCellExists(goalCellExists);
+        planner = new LifelongPlanningAStarSearcher(null, false);
+        planner.setMap(map);
+        grid.addCellChangeListener(planner);
+        updatePath();
 
         System.out.println("width: " + width + " height: " + height);
         setPreferredSize(new Dimension(width, height));
@@ -101,7 +128,12 @@ public class MapBuilderGrid extends JPanel implements MouseMotionListener, Mouse
         imgGraphics.setColor(Color.BLACK);
         imgGraphics.drawRect(0, 0, getWidth(), getHeight());
 
-        grid.render(imgGraphics);
+        if (drawn) {
+            grid.render(imgGraphics, changes);
+        } else {
+            grid.render(imgGraphics);
+            drawn = true;
+        }
 
         // draw image
         Graphics2D g2d = (Graphics2D) g;
@@ -109,12 +141,7 @@ public class MapBuilderGrid extends JPanel implements MouseMotionListener, Mouse
     }
 
     private void colorCell(int x, int y) {
-        Cell cell = null;
-        try {
-            cell = grid.getCell(y / grid.getHeight(), x / grid.getWidth());
-        } catch (ArrayIndexOutOfBoundsException e) {
-
-        }
+        Cell cell = grid.getCellAt(x, y);
 
         Color c = grid.getSelectedCellColor();
 
@@ -123,25 +150,51 @@ public class MapBuilderGrid extends JPanel implements MouseMotionListener, Mouse
                 Color cellColor = cell.getColor();
                 if (cellColor.equals(Cell.START_CELL_COLOR))
                     grid.setStartCellExists(false);
-                else if (cellColor.equals(Cell.GOAL_CELL_COLOR))
-                    grid.setGoalCellExists(false);
                 if (c.equals(Cell.START_CELL_COLOR)) {
                     if (!grid.getStartCellExists()) {
-                        cell.setColor(c);
+                        grid.setCellColor(cell, c);
                         grid.setStartCellExists(true);
                     }
-                } else if (c.equals(Cell.GOAL_CELL_COLOR)) {
-                    if (!grid.getGoalCellExists()) {
-                        cell.setColor(c);
-                        grid.setGoalCellExists(true);
-                    }
                 } else {
-                    cell.setColor(c);
+                    // there can be any number of goal cells
+                    grid.setCellColor(cell, c);
                 }
 
+                grid.setGoalCellExists(grid.getMap().getGoal() >= 0);
+
+                updatePath();
                 repaint();
             }
         }
     }
 
+    /**
+     * Shows the shortest path between the start and goal cells, if there are both, in place of the last one shown
+     */
+    public void updatePath() {
+        for (int id : shownPath) {
+            Cell cell = grid.getCell(id);
+            if (!cell.isStart() && !cell.isGoal())
+                grid.resetCellColor(cell);
+        }
+
+        shownPath = new int[0];
+
+        CompactGrid map = grid.getMap();
+        if (map.getStart() < 0 || map.getGoal() < 0)
+            return;
+
+        PathResult result = planner.searchHeadless();
+        if (!result.isFound())
+            return;
+
+        shownPath = result.getPath();
+
+        for (int id : shownPath) {
+            Cell cell = grid.getCell(id);
+            if (!cell.isStart() && !cell.isGoal())
+                cell.setColor(Searcher.PATH_COLOR);
+        }
+    }
+
 }
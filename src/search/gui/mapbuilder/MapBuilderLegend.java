@@ -1,6 +1,6 @@
 package search.gui.mapbuilder;
 
-import search.grid.Cell;
+import search.grid.CompactGrid;
 import search.grid.Grid;
 import search.gui.mapbuilder.legend.CellLegend;
 import search.gui.mapbuilder.legend.TextFieldLegend;
@@ -45,6 +45,11 @@ public class MapBuilderLegend extends JPanel implements MouseListener {
      */
     public static final int TEXT_FIELD_MAX_COLS = 3;
 
+    /**
+     * Maximum number of rows/cols of a map made with the builder. Bigger maps can still be loaded from a file
+     */
+    public static final int MAX_GRID_ROWS = 100;
+
     /**
      *
      */
@@ -230,6 +235,7 @@ public class MapBuilderLegend extends JPanel implements MouseListener {
         clearBtn.setBounds(WHITE_X, clearY, BUTTON_WIDTH, BUTTON_HEIGHT);
         clearBtn.addActionListener(e -> {
             this.grid.clear();
+            mGrid.updatePath();
             mGrid.repaint();
         });
 
@@ -312,11 +318,10 @@ public class MapBuilderLegend extends JPanel implements MouseListener {
             return;
         }
 
-        if (row != col)
+        if (row < Grid.MIN_GRID_ROWS || row > MAX_GRID_ROWS)
             return;
 
-        // only need to check bounds for row since row == col
-        if (row < Grid.MIN_GRID_ROWS || row > Grid.MAX_GRID_ROWS)
+        if (col < Grid.MIN_GRID_ROWS || col > MAX_GRID_ROWS)
             return;
 
         ((JFrame) getTopLevelAncestor()).dispose();
@@ -354,16 +359,25 @@ public class MapBuilderLegend extends JPanel implements MouseListener {
             writer.newLine();
             writer.newLine();
 
+            // write from the map, a cell can stand for more than one map cell on big maps
+            CompactGrid compactGrid = grid.getMap();
             for (int i = 0; i < grid.getRows(); i++) {
                 for (int j = 0; j < grid.getCols(); j++) {
-                    Cell c = grid.getCell(i, j);
+                    writer.write(grid.getMapColor(compactGrid.getId(i, j)).getRGB() + " ");
+                }
+                writer.write("\n");
+            }
 
-                    //if (c.isSelected())
-                        //c.setColor(Cell.CLEAR_CELL_COLOR);
+            // terrain costs are only written for maps that have them
+            if (!compactGrid.hasUniformCosts()) {
+                writer.newLine();
 
-                    writer.write(c.getColor().getRGB() + " ");
+                for (int i = 0; i < grid.getRows(); i++) {
+                    for (int j = 0; j < grid.getCols(); j++) {
+                        writer.write(compactGrid.getCost(compactGrid.getId(i, j)) + " ");
+                    }
+                    writer.write("\n");
                 }
-                writer.write("\n");
             }
 
             writer.close();
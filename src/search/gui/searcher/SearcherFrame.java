@@ -1,11 +1,10 @@
 package search.gui.searcher;
 
-import search.SearcherFileReader;
+import search.grid.CompactGrid;
 import search.grid.Grid;
 import search.pathfinder.Searcher;
 
 import javax.swing.*;
-import java.io.File;
 
 public class SearcherFrame extends JFrame {
 
@@ -13,22 +12,19 @@ public class SearcherFrame extends JFrame {
     private static final int WIDTH_PADDING = 16;
     private static final int HEIGHT_PADDING = 39;
 
-    public SearcherFrame(String title, File file, Searcher searcher) {
+    /**
+     * @param title title of the frame
+     * @param map map to search. It can be shared by any number of frames
+     * @param searcher searcher to visualize
+     */
+    public SearcherFrame(String title, CompactGrid map, Searcher searcher) {
         super(title);
 
-        SearcherFileReader fileReader = SearcherFileReader.readFile(file);
-
-        int gridRows = fileReader.getGridRows();
-        int gridCols = fileReader.getGridCols();
-
-        int[][] colors = fileReader.getColors();
-
-        int cellSize = Grid.GRID_SIZE / gridRows;
-        int frameWidth = cellSize * gridCols;
-        int frameHeight = cellSize * gridRows;
-
-        Grid grid = new Grid(gridRows, gridCols, colors, true);
+        Grid grid = new Grid(map);
         searcher.setGrid(grid);
+
+        int frameWidth = grid.getViewWidth();
+        int frameHeight = grid.getViewHeight();
         SearcherPanel asPanel = new SearcherPanel(grid, frameWidth, frameHeight, searcher);
 
         setSize(frameWidth, frameHeight);
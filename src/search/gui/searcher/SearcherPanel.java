@@ -1,12 +1,15 @@
 package search.gui.searcher;
 
+import search.pathfinder.PathResult;
 import search.pathfinder.Searcher;
 import search.grid.Cell;
 import search.grid.Grid;
+import search.util.ChangeJournal;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.util.Locale;
 
 public class SearcherPanel extends JPanel {
 
@@ -15,6 +18,12 @@ public class SearcherPanel extends JPanel {
     private Grid grid;
     private BufferedImage img;
 
+    /**
+     * Cells that changed since the image was last drawn onto. Only those are drawn again
+     */
+    private ChangeJournal.Cursor changes;
+    private boolean drawn;
+
     private Searcher searcher;
 
     public SearcherPanel(Grid grid, int width, int height, Searcher searcher) {
@@ -26,13 +35,17 @@ public class SearcherPanel extends JPanel {
         this.searcher = searcher;
 
         img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        changes = grid.getJournal().subscribe();
 
         Thread searcherThread = new Thread(() -> {
             if (grid != null) {
                 Cell pathCell = this.searcher.search();
+                PathResult result = this.searcher.path(pathCell);
+
+                String cost = result.isFound() ? String.format(Locale.ROOT, "%.2f", result.getCost()) : "no path";
 
                 JFrame parentFrame = (JFrame) getTopLevelAncestor();
-                parentFrame.setTitle(parentFrame.getTitle() + ": " + this.searcher.path(pathCell)[1]);
+                parentFrame.setTitle(parentFrame.getTitle() + ": " + cost);
             }
         });
 
@@ -51,7 +64,13 @@ public class SearcherPanel extends JPanel {
     private void render(Graphics g) {
         // draw onto image
         Graphics2D imgGraphics = (Graphics2D) img.getGraphics();
-        grid.render(imgGraphics);
+
+        if (drawn) {
+            grid.render(imgGraphics, changes);
+        } else {
+            grid.render(imgGraphics);
+            drawn = true;
+        }
 
         // draw image onto panel
         Graphics2D g2d = (Graphics2D) g;
@@ -1,14 +1,26 @@
 package search.gui.selection;
 
+import search.SearcherFileReader;
+import search.grid.CompactGrid;
 import search.grid.Grid;
 import search.gui.mapbuilder.MapBuilder;
 import search.gui.searcher.SearcherFrame;
+import search.pathfinder.BidirectionalBreadthFirstSearcher;
 import search.pathfinder.BreadthFirstSearcher;
 import search.pathfinder.DepthFirstSearcher;
+import search.pathfinder.DijkstraSearcher;
+import search.pathfinder.ParallelBreadthFirstSearcher;
 import search.pathfinder.Searcher;
 import search.pathfinder.heuristic.AStarSearcher;
+import search.pathfinder.heuristic.BidirectionalAStarSearcher;
+import search.pathfinder.heuristic.DStarLiteSearcher;
 import search.pathfinder.heuristic.GreedyBestFirstSearcher;
 import search.pathfinder.heuristic.HeuristicDepthFirstSearcher;
+import search.pathfinder.heuristic.HierarchicalAStarSearcher;
+import search.pathfinder.heuristic.JumpPointSearcher;
+import search.pathfinder.heuristic.LifelongPlanningAStarSearcher;
+import search.pathfinder.heuristic.ParallelBidirectionalAStarSearcher;
+import search.pathfinder.heuristic.ThetaStarSearcher;
 
 import javax.swing.*;
 import java.awt.*;
@@ -59,7 +71,17 @@ public class SelectionPanel extends JPanel {
                         new JCheckBox("Greedy Best-First Searcher"),
                         new JCheckBox("Depth-First Searcher"),
                         new JCheckBox("Heuristic Depth-First Searcher"),
-                        new JCheckBox("Breadth-First Searcher")
+                        new JCheckBox("Breadth-First Searcher"),
+                        new JCheckBox("Jump Point Searcher"),
+                        new JCheckBox("Bidirectional A* Searcher"),
+                        new JCheckBox("Bidirectional Breadth-First Searcher"),
+                        new JCheckBox("Parallel Bidirectional A* Searcher"),
+                        new JCheckBox("Parallel Breadth-First Searcher"),
+                        new JCheckBox("Hierarchical A* Searcher"),
+                        new JCheckBox("D* Lite Searcher"),
+                        new JCheckBox("Lifelong Planning A* Searcher"),
+                        new JCheckBox("Dijkstra Searcher"),
+                        new JCheckBox("Theta* Searcher")
                 };
 
                 Local l = new Local();
@@ -73,14 +95,29 @@ public class SelectionPanel extends JPanel {
                         new GreedyBestFirstSearcher(null, true),
                         new DepthFirstSearcher(null, true),
                         new HeuristicDepthFirstSearcher(null, true),
-                        new BreadthFirstSearcher(null, true)
+                        new BreadthFirstSearcher(null, true),
+                        new JumpPointSearcher(null, true),
+                        new BidirectionalAStarSearcher(null, true),
+                        new BidirectionalBreadthFirstSearcher(null, true),
+                        new ParallelBidirectionalAStarSearcher(null, true),
+                        new ParallelBreadthFirstSearcher(null, true),
+                        new HierarchicalAStarSearcher(null, true),
+                        new DStarLiteSearcher(null, true),
+                        new LifelongPlanningAStarSearcher(null, true),
+                        new DijkstraSearcher(null, true),
+                        new ThetaStarSearcher(null, true)
                 };
 
                 JButton okBtn = new JButton("OK");
                 okBtn.addActionListener(e1 -> {
+                    // read the map once, every frame builds its own view over the same compact grid
+                    CompactGrid map = SearcherFileReader.readMap(file);
+                    if (map == null)
+                        return;
+
                     for (int i = 0; i < searcherCheckBoxes.length; i++) {
                         if (searcherCheckBoxes[i].isSelected())
-                            new SearcherFrame(searcherCheckBoxes[i].getText(), file, searchers[i]);
+                            new SearcherFrame(searcherCheckBoxes[i].getText(), map, searchers[i]);
                     }
                 });
 
@@ -0,0 +1,159 @@
+package search.pathfinder;
+
+import search.grid.Grid;
+import search.util.VisitedSet;
+
+/**
+ * A breadth-first search run from the start cell and the goal cell at the same time. Each search only has to get about
+ * halfway, so on open maps it reaches roughly half as many cells as a {@link BreadthFirstSearcher}.
+ *
+ * <p>The two searches take turns expanding a whole level at a time, always the one with the smaller frontier. Once a
+ * level reaches cells the other search has already reached, the cell with the shortest combined path is where they
+ * meet, and the two halves are joined with {@link #splice(int, SearchContext)}</p>
+ */
+public class BidirectionalBreadthFirstSearcher extends Searcher {
+
+    /**
+     * Search from the start cell. Its state lives in {@link #context}
+     */
+    private Frontier forward;
+
+    /**
+     * Search from the goal cell
+     */
+    private Frontier backward;
+
+    public BidirectionalBreadthFirstSearcher(Grid grid, boolean showMultipleColors) {
+        super(grid, showMultipleColors);
+    }
+
+    @Override
+    protected int find() {
+        int size = context.size();
+
+        if (forward == null || forward.queue.length != size) {
+            forward = new Frontier(size);
+            backward = new Frontier(size);
+        }
+
+        if (backward.context == null || backward.context.size() != size)
+            backward.context = new SearchContext(size);
+
+        forward.context = context;
+        backward.context.reset();
+
+        if (goal < 0)
+            return -1;
+
+        forward.start(start);
+        backward.start(goal);
+
+        if (start == goal)
+            return goal;
+
+        while (!forward.isEmpty() && !backward.isEmpty()) {
+            int meet;
+
+            if (forward.size() <= backward.size())
+                meet = expandLevel(forward, backward, true);
+            else
+                meet = expandLevel(backward, forward, false);
+
+            if (meet >= 0)
+                return splice(meet, backward.context);
+        }
+
+        return -1;
+    }
+
+    /**
+     * Expands every cell of a search's current level
+     *
+     * @param own search to expand
+     * @param other the search going the other way
+     * @param isForward whether or not <code>own</code> is the search from the start cell
+     * @return id of the cell the searches meet at, <code>-1</code> if they haven't met yet
+     */
+    private int expandLevel(Frontier own, Frontier other, boolean isForward) {
+        VisitedSet closed = own.context.getClosed();
+
+        int levelEnd = own.tail;
+        int meet = -1;
+        double best = Double.POSITIVE_INFINITY;
+
+        while (own.head < levelEnd) {
+            pause();
+
+            int c = own.queue[own.head++];
+
+            closed.add(c);
+            expanded++;
+            markClosed(c);
+
+            int count = neighbors(c, neighborBuffer);
+            for (int i = 0; i < count; i++) {
+                int n = neighborBuffer[i];
+
+                // cycle pruning
+                if (closed.contains(n)) {
+                    if (isForward)
+                        markRevisited(n);
+
+                    continue;
+                }
+
+                // already queued, and the first time a cell is reached is along a shortest path
+                if (own.context.isReached(n))
+                    continue;
+
+                markOpen(n);
+
+                double g = own.context.getGCost(c) + (isForward ? map.moveCost(c, n) : map.moveCost(n, c));
+                own.context.reach(n, c, g);
+                own.queue[own.tail++] = n;
+
+                // finish the level anyway, a later cell in it can still make a shorter path
+                if (other.context.isReached(n) && g + other.context.getGCost(n) < best) {
+                    best = g + other.context.getGCost(n);
+                    meet = n;
+                }
+            }
+        }
+
+        return meet;
+    }
+
+    /**
+     * FIFO queue and state of one of the two searches
+     */
+    private static class Frontier {
+
+        private final int[] queue;
+        private int head;
+        private int tail;
+
+        private SearchContext context;
+
+        private Frontier(int size) {
+            queue = new int[size];
+        }
+
+        private void start(int id) {
+            head = 0;
+            tail = 0;
+
+            queue[tail++] = id;
+            context.setGCost(id, 0);
+        }
+
+        private int size() {
+            return tail - head;
+        }
+
+        private boolean isEmpty() {
+            return head == tail;
+        }
+
+    }
+
+}
@@ -1,83 +1,66 @@
 package search.pathfinder;
 
-import search.grid.Cell;
 import search.grid.Grid;
-
-import java.awt.*;
-import java.util.*;
+import search.util.VisitedSet;
 
 public class BreadthFirstSearcher extends Searcher {
 
-    private Queue<Cell> open;
-    private ArrayList<Cell> closed;
+    /**
+     * FIFO queue of cell ids. A cell is queued at most once, so it never needs more room than there are cells
+     */
+    private int[] open;
 
     public BreadthFirstSearcher(Grid grid, boolean showMultipleColors) {
         super(grid, showMultipleColors);
-
-        open = new LinkedList<>();
-        closed = new ArrayList<>();
     }
 
     @Override
-    public Cell search() {
-        Color first = new Color(245, 11, 255);
-        Color second = new Color(80, 242, 255);
-        Color third = new Color(255, 144, 4);
-        Color fourth = new Color(255, 61, 146);
-        Color fifth = new Color(159, 2, 255);
-        Color[] seenColors = {first, second, third, fourth, fifth};
-
-        open.add(grid.getStartCell());
-
-        while (!open.isEmpty()) {
-            try {
-                Thread.sleep(SEARCHER_DELAY);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+    protected int find() {
+        if (open == null || open.length != context.size())
+            open = new int[context.size()];
 
-            Cell c = open.poll();
+        VisitedSet closed = context.getClosed();
 
-            if (c != null) {
-                c.setAlongPath(true);
+        int head = 0;
+        int tail = 0;
 
-                if (c.isGoal())
-                    return c;
+        open[tail++] = start;
+        context.setGCost(start, 0);
 
-                // cycle pruning
-                if (closed.indexOf(c) >= 0) {
-                    if (showMultipleColors) {
-                        if (!c.isStart() && !c.isGoal()) {
-                            if (c.getColor().equals(seenColors[c.getReachedCount()]))
-                                c.setReachedCount(c.getReachedCount() + 1);
+        while (head < tail) {
+            pause();
+
+            int c = open[head++];
+
+            if (map.isGoal(c))
+                return c;
 
-                            c.setColor(seenColors[c.getReachedCount()]);
-                        }
-                    }
+            closed.add(c);
+            expanded++;
+            markClosed(c);
 
+            int count = neighbors(c, neighborBuffer);
+            for (int i = 0; i < count; i++) {
+                int n = neighborBuffer[i];
+
+                // cycle pruning
+                if (closed.contains(n)) {
+                    markRevisited(n);
                     continue;
                 }
 
-                closed.add(c);
-
-                if (!c.isStart() && !c.isGoal())
-                    c.setColor(new Color(157, 255, 26));
+                // already queued, and the first time a cell is reached is along a shortest path
+                if (context.isReached(n))
+                    continue;
 
-                ArrayList<Cell> neighbors = c.getNeighbors();
-                for (Cell n : neighbors) {
-                    if (closed.indexOf(n) < 0) {
-                        if (!n.isAlongPath() && (!n.isStart() && !n.isGoal()))
-                            n.setColor(Color.YELLOW);
+                markOpen(n);
 
-                        open.add(n);
-                        n.setParent(c);
-                        n.setAlongPath(true);
-                    }
-                }
+                context.reach(n, c, context.getGCost(c) + map.moveCost(c, n));
+                open[tail++] = n;
             }
         }
 
-        return null;
+        return -1;
     }
 
 }
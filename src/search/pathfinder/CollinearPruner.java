@@ -0,0 +1,38 @@
+package search.pathfinder;
+
+import search.grid.CompactGrid;
+
+/**
+ * Drops every point in the middle of a straight run, keeping only the points where the path turns. Nothing gets any
+ * shorter, so it's always safe, and it's a cheap first step before {@link StringPuller}, which then has far fewer
+ * points to look at. One pass, O(1) per point
+ */
+public class CollinearPruner implements PathProcessor {
+
+    @Override
+    public int process(CompactGrid map, int[] path, int length) {
+        if (length <= 2)
+            return length;
+
+        int kept = 1;
+        for (int i = 1; i < length - 1; i++) {
+            int prev = path[kept - 1];
+            int curr = path[i];
+            int next = path[i + 1];
+
+            int dRow1 = map.getRow(curr) - map.getRow(prev);
+            int dCol1 = map.getCol(curr) - map.getCol(prev);
+            int dRow2 = map.getRow(next) - map.getRow(curr);
+            int dCol2 = map.getCol(next) - map.getCol(curr);
+
+            // the point stays unless the path carries on past it in the same direction
+            boolean collinear = dRow1 * dCol2 == dCol1 * dRow2 && dRow1 * dRow2 + dCol1 * dCol2 > 0;
+            if (!collinear)
+                path[kept++] = curr;
+        }
+
+        path[kept++] = path[length - 1];
+        return kept;
+    }
+
+}
@@ -1,88 +1,76 @@
 package search.pathfinder;
 
-import search.grid.Cell;
 import search.grid.Grid;
+import search.util.IntStack;
+import search.util.VisitedSet;
 
-import java.awt.*;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Stack;
+import java.util.Random;
 
 public class DepthFirstSearcher extends Searcher {
 
-    private Stack<Cell> open;
-    private ArrayList<Cell> closed;
+    private IntStack open;
+    private Random random;
 
     public DepthFirstSearcher(Grid grid, boolean showMultipleColors) {
         super(grid, showMultipleColors);
 
-        open = new Stack<>();
-        closed = new ArrayList<>();
+        open = new IntStack();
+        random = new Random();
     }
 
     @Override
-    public Cell search() {
-        Color first = new Color(245, 11, 255);
-        Color second = new Color(80, 242, 255);
-        Color third = new Color(255, 144, 4);
-        Color fourth = new Color(255, 61, 146);
-        Color fifth = new Color(159, 2, 255);
-        Color[] seenColors = {first, second, third, fourth, fifth};
+    protected int find() {
+        VisitedSet closed = context.getClosed();
 
-        open.add(grid.getStartCell());
+        open.clear();
+        open.push(start);
+        context.setGCost(start, 0);
 
         while (!open.isEmpty()) {
-            try {
-                Thread.sleep(SEARCHER_DELAY);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-
-            Cell c = open.pop();
-
-            if (c != null) {
-                c.setAlongPath(true);
+            pause();
 
-                if (c.isGoal())
-                    return c;
+            int c = open.pop();
 
-                // cycle pruning
-                if (closed.indexOf(c) >= 0) {
-                    if (showMultipleColors) {
-                        if (!c.isStart() && !c.isGoal()) {
-                            if (c.getColor().equals(seenColors[c.getReachedCount()]))
-                                c.setReachedCount(c.getReachedCount() + 1);
+            if (map.isGoal(c))
+                return c;
 
-                            c.setColor(seenColors[c.getReachedCount()]);
-                        }
-                    }
-
-                    continue;
-                }
+            // cycle pruning
+            if (closed.contains(c)) {
+                markRevisited(c);
+                continue;
+            }
 
-                closed.add(c);
+            closed.add(c);
+            expanded++;
+            markClosed(c);
 
-                if (!c.isStart() && !c.isGoal())
-                    c.setColor(new Color(157, 255, 26));
+            int count = neighbors(c, neighborBuffer);
+            shuffle(neighborBuffer, count);
 
-                ArrayList<Cell> neighbors = c.getNeighbors();
-                Collections.shuffle(neighbors);
-                //Collections.reverse(neighbors);
+            for (int i = 0; i < count; i++) {
+                int n = neighborBuffer[i];
 
-                for (Cell n : neighbors) {
-                    if (closed.indexOf(n) < 0) {
-                        if (!n.isAlongPath() && (!n.isStart() && !n.isGoal()))
-                            n.setColor(Color.YELLOW);
+                if (!closed.contains(n)) {
+                    markOpen(n);
 
-                        open.add(n);
-                        n.setParent(c);
-                        n.setAlongPath(true);
-                    }
+                    // the last cell to push n is the one it gets popped under
+                    open.push(n);
+                    context.reach(n, c, context.getGCost(c) + map.moveCost(c, n));
                 }
             }
         }
 
-        return null;
+        return -1;
+    }
+
+    private void shuffle(int[] ids, int count) {
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+
+            int tmp = ids[i];
+            ids[i] = ids[j];
+            ids[j] = tmp;
+        }
     }
 
 }
@@ -0,0 +1,140 @@
+package search.pathfinder;
+
+import search.grid.CompactGrid;
+import search.grid.Grid;
+import search.util.BucketQueue;
+import search.util.IndexedMinHeap;
+import search.util.VisitedSet;
+
+/**
+ * Dijkstra's algorithm. Expands cells in order of their cost from the start cell with no heuristic, so the first goal
+ * cell it reaches is the nearest one. If the map has no goal cell it floods every cell reachable from the start cell,
+ * after which the context holds the cost of getting to each of them.
+ *
+ * <p>With four neighbors a move costs the average of two whole terrain costs, so twice the cost of any path is a
+ * whole number and goes up by at most twice {@link CompactGrid#getMaxCost()} per move. The open list is then a
+ * {@link BucketQueue}, Dial's algorithm, which costs O(1) per cell instead of the O(log n) of a heap. Diagonal moves
+ * cost a multiple of the square root of two, so with eight neighbors it falls back to the {@link IndexedMinHeap} of
+ * the {@link SearchContext}</p>
+ */
+public class DijkstraSearcher extends Searcher {
+
+    /**
+     * Open list of searches with four neighbors, keyed by twice the cost of each cell. Created on the first one
+     */
+    private BucketQueue buckets;
+
+    public DijkstraSearcher(Grid grid, boolean showMultipleColors) {
+        super(grid, showMultipleColors);
+    }
+
+    @Override
+    protected int find() {
+        if (map.getConnectivity() == CompactGrid.Connectivity.FOUR)
+            return findWithBuckets();
+
+        return findWithHeap();
+    }
+
+    private int findWithBuckets() {
+        int maxStep = 2 * map.getMaxCost();
+
+        if (buckets == null || buckets.getMaxStep() != maxStep)
+            buckets = new BucketQueue(maxStep);
+        else
+            buckets.clear();
+
+        VisitedSet closed = context.getClosed();
+
+        context.setGCost(start, 0);
+        buckets.offer(start, 0);
+
+        while (!buckets.isEmpty()) {
+            int min = buckets.poll();
+
+            // a copy left behind when the cell was reached more cheaply
+            if (closed.contains(min))
+                continue;
+
+            if (map.isGoal(min))
+                return min;
+
+            expand(min, closed);
+
+            int count = neighbors(min, neighborBuffer);
+            for (int i = 0; i < count; i++) {
+                pause();
+
+                int n = neighborBuffer[i];
+                double g = relax(min, n, closed);
+
+                if (g >= 0)
+                    buckets.offer(n, (long) (2 * g));
+            }
+        }
+
+        return -1;
+    }
+
+    private int findWithHeap() {
+        IndexedMinHeap open = context.getOpen();
+        VisitedSet closed = context.getClosed();
+
+        context.setGCost(start, 0);
+        open.offer(start, 0);
+
+        while (!open.isEmpty()) {
+            int min = open.poll();
+
+            if (map.isGoal(min))
+                return min;
+
+            expand(min, closed);
+
+            int count = neighbors(min, neighborBuffer);
+            for (int i = 0; i < count; i++) {
+                pause();
+
+                int n = neighborBuffer[i];
+                double g = relax(min, n, closed);
+
+                if (g >= 0)
+                    open.offer(n, g);
+            }
+        }
+
+        return -1;
+    }
+
+    private void expand(int id, VisitedSet closed) {
+        closed.add(id);
+        expanded++;
+        markClosed(id);
+    }
+
+    /**
+     * Reaches a neighbor through a cell if that's cheaper than the way it was reached before
+     *
+     * @param from id of the cell being expanded
+     * @param to id of its neighbor
+     * @return the neighbor's new cost, <code>-1</code> if it didn't get cheaper
+     */
+    private double relax(int from, int to, VisitedSet closed) {
+        if (closed.contains(to)) {
+            markRevisited(to);
+            return -1;
+        }
+
+        double g = context.getGCost(from) + map.moveCost(from, to);
+
+        // already queued with a path that is at least as short
+        if (context.getGCost(to) <= g)
+            return -1;
+
+        markOpen(to);
+
+        context.reach(to, from, g);
+        return g;
+    }
+
+}
@@ -0,0 +1,467 @@
+package search.pathfinder;
+
+import search.grid.CompactGrid;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A <code>FlowField</code> holds the distance from every cell to the nearest goal cell of a map, and the move that
+ * gets closer from every cell, worked out by one search outwards from all of the goal cells at once. Any number of
+ * agents headed for those goal cells can then walk there by following {@link #next(int)} from wherever they are,
+ * instead of each running a search of its own.
+ *
+ * <p>Distances are whole numbers so the field stays compact, an <code>int</code> and a <code>byte</code> per cell. An
+ * orthogonal move costs {@link #STRAIGHT_COST} and a diagonal one {@link #DIAGONAL_COST}, times the average terrain
+ * cost of the two cells like {@link CompactGrid#moveCost(int, int)}. 14 / 10 is within 1% of the square root of two,
+ * so following the field never costs more than 1% over the shortest path. The search is Dial's algorithm: cells are
+ * kept in a ring of buckets by distance instead of a heap, which works because every move costs a small whole number.
+ * Cells further than {@link Integer#MAX_VALUE} from every goal cell count as unreachable</p>
+ *
+ * <p>Given a <code>ForkJoinPool</code>, every bucket is relaxed in parallel the way the
+ * {@link ParallelBreadthFirstSearcher} expands a frontier. All of the cells of a bucket are the same distance away,
+ * so they can be relaxed in any order. Distances are lowered with an atomic compare-and-set, and the moves are picked
+ * afterwards from the final distances, so the field comes out the same whichever way it was built</p>
+ *
+ * <p>A field is for the map as it was when it was built. {@link #isCurrent()} tells whether it still is, and a
+ * {@link FlowFieldCache} rebuilds it only once it isn't</p>
+ */
+public class FlowField {
+
+    /**
+     * Cost of an orthogonal move
+     */
+    public static final int STRAIGHT_COST = 10;
+
+    /**
+     * Cost of a diagonal move
+     */
+    public static final int DIAGONAL_COST = 14;
+
+    /**
+     * Distance of a cell no goal cell can be reached from
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /**
+     * Move of a goal cell and of a cell no goal cell can be reached from
+     */
+    public static final byte NO_DIRECTION = -1;
+
+    /**
+     * Largest piece of a bucket, or range of cells, that is handled by one task without splitting it further
+     */
+    public static final int SPLIT_THRESHOLD = 1024;
+
+    /**
+     * Row and column offsets of the moves, indexed by direction
+     */
+    private static final int[] DIRECTION_ROWS = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] DIRECTION_COLS = {-1, 0, 1, -1, 1, -1, 0, 1};
+
+    private final CompactGrid map;
+
+    /**
+     * {@link CompactGrid#getVersion()} of the map when the field was built
+     */
+    private final long version;
+
+    private final int[] distances;
+
+    /**
+     * Move to make from each cell, an index into {@link #DIRECTION_ROWS} and {@link #DIRECTION_COLS}
+     */
+    private final byte[] directions;
+
+    private FlowField(CompactGrid map, long version, int[] distances, byte[] directions) {
+        this.map = map;
+        this.version = version;
+        this.distances = distances;
+        this.directions = directions;
+    }
+
+    /**
+     * Builds the field of a map's goal cells on the calling thread
+     *
+     * @param map map to build the field for
+     * @return the field
+     */
+    public static FlowField build(CompactGrid map) {
+        return new Builder(map, null).build();
+    }
+
+    /**
+     * Builds the field of a map's goal cells, relaxing big buckets in parallel
+     *
+     * @param map map to build the field for
+     * @param pool pool the buckets are relaxed on
+     * @return the field
+     */
+    public static FlowField build(CompactGrid map, ForkJoinPool pool) {
+        return new Builder(map, pool).build();
+    }
+
+    /**
+     * @param id id of the cell
+     * @return distance from the cell to the nearest goal cell in {@link #STRAIGHT_COST}s and {@link #DIAGONAL_COST}s,
+     * {@link #UNREACHABLE} if there is no way to one
+     */
+    public int getDistance(int id) {
+        return distances[id];
+    }
+
+    /**
+     * @param id id of the cell
+     * @return distance from the cell to the nearest goal cell in the units of {@link CompactGrid#moveCost(int, int)},
+     * infinite if there is no way to one
+     */
+    public double getCost(int id) {
+        return (distances[id] == UNREACHABLE) ? Double.POSITIVE_INFINITY : (double) distances[id] / STRAIGHT_COST;
+    }
+
+    public boolean isReachable(int id) {
+        return distances[id] != UNREACHABLE;
+    }
+
+    /**
+     * @param id id of the cell
+     * @return index of the move to make from the cell, {@link #NO_DIRECTION} for a goal cell or a cell that can't reach
+     * one
+     */
+    public byte getDirection(int id) {
+        return directions[id];
+    }
+
+    /**
+     * @param id id of the cell
+     * @return id of the neighbor to move to from the cell to get closer to the nearest goal cell, <code>-1</code> for a
+     * goal cell or a cell that can't reach one
+     */
+    public int next(int id) {
+        int direction = directions[id];
+        if (direction == NO_DIRECTION)
+            return -1;
+
+        return map.getId(map.getRow(id) + DIRECTION_ROWS[direction], map.getCol(id) + DIRECTION_COLS[direction]);
+    }
+
+    public CompactGrid getMap() {
+        return map;
+    }
+
+    /**
+     * @return {@link CompactGrid#getVersion()} of the map when the field was built
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return whether or not the map is still the way it was when the field was built
+     */
+    public boolean isCurrent() {
+        return map.getVersion() == version;
+    }
+
+    /**
+     * @return cost of a move between two neighboring cells, its length times the average terrain cost of the two
+     */
+    private static int moveCost(CompactGrid map, int from, int to, boolean diagonal) {
+        int costs = map.getCost(from) + map.getCost(to);
+
+        // both lengths are even, so halving is exact
+        return (diagonal ? DIAGONAL_COST : STRAIGHT_COST) * costs / 2;
+    }
+
+    /**
+     * @return index of the move from one cell to a neighbor
+     */
+    private static byte directionOf(int dRow, int dCol) {
+        int code = (dRow + 1) * 3 + (dCol + 1);
+
+        // code 4 would be not moving at all
+        return (byte) ((code < 4) ? code : code - 1);
+    }
+
+    /**
+     * State of one build
+     */
+    private static class Builder {
+
+        private final CompactGrid map;
+        private final ForkJoinPool pool;
+
+        private final AtomicIntegerArray distances;
+
+        /**
+         * Number of buckets in the ring. No move costs more than the most expensive diagonal one, so a cell is never
+         * put in the bucket being relaxed
+         */
+        private final int ring;
+
+        /**
+         * Cells put in each bucket of the ring, the cells of distance <code>d</code> in bucket <code>d % ring</code>. A
+         * cell is put in again every time its distance is lowered, so the ones whose distance is lower than their
+         * bucket's by the time it is relaxed are skipped. Buckets are created when they are first used
+         */
+        private final int[][] buckets;
+        private final int[] bucketSizes;
+
+        /**
+         * Number of cells in all of the buckets
+         */
+        private long pending;
+
+        private final int[] neighborBuffer = new int[CompactGrid.MAX_NEIGHBORS];
+        private final int[] straightBuffer = new int[SPLIT_THRESHOLD * CompactGrid.MAX_NEIGHBORS];
+        private final int[] diagonalBuffer = new int[SPLIT_THRESHOLD * CompactGrid.MAX_NEIGHBORS];
+
+        private Builder(CompactGrid map, ForkJoinPool pool) {
+            this.map = map;
+            this.pool = pool;
+
+            distances = new AtomicIntegerArray(map.size());
+
+            ring = DIAGONAL_COST * map.getMaxCost() + 1;
+            buckets = new int[ring][];
+            bucketSizes = new int[ring];
+        }
+
+        private FlowField build() {
+            long version = map.getVersion();
+            int size = map.size();
+
+            for (int id = 0; id < size; id++)
+                distances.set(id, UNREACHABLE);
+
+            int[] goals = map.getGoals();
+            int[] sources = new int[goals.length];
+            int sourceCount = 0;
+
+            for (int goal : goals) {
+                if (map.isWalkable(goal)) {
+                    distances.set(goal, 0);
+                    sources[sourceCount++] = goal;
+                }
+            }
+
+            add(sources, sourceCount);
+
+            for (int d = 0; pending > 0; d++) {
+                int b = d % ring;
+                int count = bucketSizes[b];
+
+                if (count == 0)
+                    continue;
+
+                int[] cells = buckets[b];
+
+                if (pool == null || count <= SPLIT_THRESHOLD)
+                    relax(cells, 0, count, d, neighborBuffer, straightBuffer, diagonalBuffer);
+                else
+                    pool.invoke(new RelaxTask(cells, 0, count, d));
+
+                bucketSizes[b] = 0;
+                pending -= count;
+            }
+
+            int[] result = new int[size];
+            for (int id = 0; id < size; id++)
+                result[id] = distances.get(id);
+
+            byte[] directions = new byte[size];
+
+            if (pool == null)
+                pointDirections(result, directions, 0, size, neighborBuffer);
+            else
+                pool.invoke(new DirectionTask(result, directions, 0, size));
+
+            return new FlowField(map, version, result, directions);
+        }
+
+        /**
+         * Lowers the distances of the neighbors of the cells <code>[from, to)</code> of a bucket and puts the ones it
+         * lowered in the buckets of their new distances
+         *
+         * @param d distance of the bucket
+         * @param neighbors scratch buffer of at least {@link CompactGrid#MAX_NEIGHBORS} elements
+         * @param straight scratch buffer of at least <code>(to - from) * MAX_NEIGHBORS</code> elements
+         * @param diagonal scratch buffer of at least <code>(to - from) * MAX_NEIGHBORS</code> elements
+         */
+        private void relax(int[] cells, int from, int to, int d, int[] neighbors, int[] straight, int[] diagonal) {
+            int straightCount = 0;
+            int diagonalCount = 0;
+
+            for (int i = from; i < to; i++) {
+                int c = cells[i];
+
+                // reached more cheaply since it was put in this bucket
+                if (distances.get(c) != d)
+                    continue;
+
+                int row = map.getRow(c);
+                int col = map.getCol(c);
+
+                int count = map.neighbors(c, neighbors);
+                for (int j = 0; j < count; j++) {
+                    int n = neighbors[j];
+
+                    boolean isDiagonal = map.getRow(n) != row && map.getCol(n) != col;
+                    int distance = d + moveCost(map, c, n, isDiagonal);
+
+                    // past Integer.MAX_VALUE
+                    if (distance < 0 || !lower(n, distance))
+                        continue;
+
+                    if (isDiagonal)
+                        diagonal[diagonalCount++] = n;
+                    else
+                        straight[straightCount++] = n;
+                }
+            }
+
+            add(straight, straightCount);
+            add(diagonal, diagonalCount);
+        }
+
+        /**
+         * Lowers the distance of a cell if it is higher
+         *
+         * @return whether or not the distance was lowered
+         */
+        private boolean lower(int id, int distance) {
+            int old;
+
+            while ((old = distances.get(id)) > distance) {
+                if (distances.compareAndSet(id, old, distance))
+                    return true;
+            }
+
+            return false;
+        }
+
+        /**
+         * Puts each cell in the bucket of its distance. If another thread has lowered the distance again since, the
+         * cell goes in the bucket of the new one, where that thread puts it as well; the second copy is relaxed without
+         * lowering anything
+         */
+        private synchronized void add(int[] cells, int count) {
+            for (int i = 0; i < count; i++) {
+                int b = distances.get(cells[i]) % ring;
+
+                if (buckets[b] == null)
+                    buckets[b] = new int[16];
+                else if (bucketSizes[b] == buckets[b].length)
+                    buckets[b] = Arrays.copyOf(buckets[b], 2 * buckets[b].length);
+
+                buckets[b][bucketSizes[b]++] = cells[i];
+            }
+
+            pending += count;
+        }
+
+        /**
+         * Picks the move of every cell in <code>[from, to)</code>: the first neighbor that the cell's distance came
+         * through
+         *
+         * @param neighbors scratch buffer of at least {@link CompactGrid#MAX_NEIGHBORS} elements
+         */
+        private void pointDirections(int[] distances, byte[] directions, int from, int to, int[] neighbors) {
+            for (int id = from; id < to; id++) {
+                directions[id] = NO_DIRECTION;
+
+                int d = distances[id];
+                if (d == 0 || d == UNREACHABLE)
+                    continue;
+
+                int row = map.getRow(id);
+                int col = map.getCol(id);
+
+                int count = map.neighbors(id, neighbors);
+                for (int j = 0; j < count; j++) {
+                    int n = neighbors[j];
+                    int dRow = map.getRow(n) - row;
+                    int dCol = map.getCol(n) - col;
+                    int cost = moveCost(map, id, n, dRow != 0 && dCol != 0);
+
+                    if (distances[n] != UNREACHABLE && distances[n] + cost == d) {
+                        directions[id] = directionOf(dRow, dCol);
+                        break;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Relaxes the cells <code>[from, to)</code> of a bucket, splitting the range while it's bigger than
+         * {@link #SPLIT_THRESHOLD}
+         */
+        private class RelaxTask extends RecursiveAction {
+
+            private static final long serialVersionUID = 1L;
+
+            private final int[] cells;
+            private final int from;
+            private final int to;
+            private final int d;
+
+            private RelaxTask(int[] cells, int from, int to, int d) {
+                this.cells = cells;
+                this.from = from;
+                this.to = to;
+                this.d = d;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from > SPLIT_THRESHOLD) {
+                    int mid = (from + to) >>> 1;
+                    invokeAll(new RelaxTask(cells, from, mid, d), new RelaxTask(cells, mid, to, d));
+                    return;
+                }
+
+                int buffer = (to - from) * CompactGrid.MAX_NEIGHBORS;
+                relax(cells, from, to, d, new int[CompactGrid.MAX_NEIGHBORS], new int[buffer], new int[buffer]);
+            }
+
+        }
+
+        /**
+         * Picks the moves of the cells <code>[from, to)</code>, splitting the range while it's bigger than
+         * {@link #SPLIT_THRESHOLD}
+         */
+        private class DirectionTask extends RecursiveAction {
+
+            private static final long serialVersionUID = 1L;
+
+            private final int[] distances;
+            private final byte[] directions;
+            private final int from;
+            private final int to;
+
+            private DirectionTask(int[] distances, byte[] directions, int from, int to) {
+                this.distances = distances;
+                this.directions = directions;
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from > SPLIT_THRESHOLD) {
+                    int mid = (from + to) >>> 1;
+                    invokeAll(new DirectionTask(distances, directions, from, mid),
+                            new DirectionTask(distances, directions, mid, to));
+                    return;
+                }
+
+                pointDirections(distances, directions, from, to, new int[CompactGrid.MAX_NEIGHBORS]);
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,53 @@
+package search.pathfinder;
+
+import search.grid.CompactGrid;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Keeps the last {@link FlowField} built and hands it out until its map changes, so the agents asking for it between
+ * edits share one build. A field is rebuilt when it's asked for with a different map, or once
+ * {@link CompactGrid#getVersion()} has moved on since it was built
+ */
+public class FlowFieldCache {
+
+    /**
+     * Pool fields are built on, <code>null</code> to build them on the calling thread
+     */
+    private final ForkJoinPool pool;
+
+    private FlowField field;
+
+    /**
+     * Constructs a cache that builds fields on the calling thread
+     */
+    public FlowFieldCache() {
+        this(null);
+    }
+
+    /**
+     * @param pool pool fields are built on, <code>null</code> to build them on the calling thread
+     */
+    public FlowFieldCache(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @param map map to get the field of
+     * @return the field of the map's goal cells as the map is now, built only if the last one is out of date
+     */
+    public synchronized FlowField get(CompactGrid map) {
+        if (field == null || field.getMap() != map || !field.isCurrent())
+            field = (pool == null) ? FlowField.build(map) : FlowField.build(map, pool);
+
+        return field;
+    }
+
+    /**
+     * Drops the kept field
+     */
+    public synchronized void clear() {
+        field = null;
+    }
+
+}
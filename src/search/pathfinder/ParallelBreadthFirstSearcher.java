@@ -0,0 +1,218 @@
+package search.pathfinder;
+
+import search.grid.CompactGrid;
+import search.grid.Grid;
+import search.util.AtomicBitSet;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A level-synchronous breadth-first search that expands each level's frontier in parallel on a
+ * <code>ForkJoinPool</code>.
+ *
+ * <p>A frontier is split in halves until the pieces are at most {@link #SPLIT_THRESHOLD} cells. Each piece expands its
+ * cells and claims the neighbors that haven't been reached yet with an atomic compare-and-set on a shared bitset, so
+ * every cell gets exactly one parent no matter how many threads reach it. Claimed cells are gathered in a buffer per
+ * piece and copied into the next frontier in one block, so threads don't contend on every cell. Pieces only write the
+ * search state of cells they claimed, and each level is joined before the next starts, so the
+ * {@link SearchContext} needs no locking. A frontier that is already no bigger than a piece is expanded on the calling
+ * thread, so long narrow corridors don't pay for a trip through the pool on every level</p>
+ *
+ * <p>Like the {@link BreadthFirstSearcher} it stops at the goal cell. If the map has no goal cell it floods every cell
+ * reachable from the start cell, after which the context holds the distance to each of them</p>
+ */
+public class ParallelBreadthFirstSearcher extends Searcher {
+
+    /**
+     * Largest piece of a frontier that is expanded by one task without splitting it further
+     */
+    public static final int SPLIT_THRESHOLD = 1024;
+
+    /**
+     * Scratch buffers of each pool thread, so pieces don't allocate their own on every level. A piece runs to the end
+     * on the thread that started it, so no two pieces share them
+     */
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Cells reached so far. Created on the first search
+     */
+    private AtomicBitSet reached;
+
+    /**
+     * Frontier being expanded and the frontier being built. Swapped after every level
+     */
+    private int[] frontier;
+    private int[] nextFrontier;
+
+    /**
+     * Number of cells in {@link #nextFrontier}
+     */
+    private final AtomicInteger nextSize = new AtomicInteger();
+
+    private final AtomicInteger expandedCount = new AtomicInteger();
+
+    /**
+     * Buffer for the cells claimed by a frontier expanded on the calling thread
+     */
+    private final int[] claimedBuffer = new int[SPLIT_THRESHOLD * CompactGrid.MAX_NEIGHBORS];
+
+    /**
+     * Set once a goal cell has been claimed, so the remaining pieces of the level can stop early
+     */
+    private volatile boolean goalReached;
+
+    /**
+     * Goal cell that was claimed. If several are claimed in the same level any of them will do, they are all the same
+     * number of moves away
+     */
+    private volatile int reachedGoal;
+
+    public ParallelBreadthFirstSearcher(Grid grid, boolean showMultipleColors) {
+        this(grid, showMultipleColors, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param grid grid to show progress on
+     * @param showMultipleColors whether or not to show cells that were reached again in different colors
+     * @param pool pool the frontiers are expanded on
+     */
+    public ParallelBreadthFirstSearcher(Grid grid, boolean showMultipleColors, ForkJoinPool pool) {
+        super(grid, showMultipleColors);
+        this.pool = pool;
+    }
+
+    @Override
+    protected int find() {
+        int size = context.size();
+
+        if (reached == null || reached.capacity() != size) {
+            reached = new AtomicBitSet(size);
+            frontier = new int[size];
+            nextFrontier = new int[size];
+        } else {
+            reached.clear();
+        }
+
+        expandedCount.set(0);
+        goalReached = false;
+        reachedGoal = -1;
+
+        reached.add(start);
+        context.setGCost(start, 0);
+
+        if (map.isGoal(start))
+            return start;
+
+        frontier[0] = start;
+        int frontierSize = 1;
+
+        while (frontierSize > 0 && !goalReached) {
+            nextSize.set(0);
+
+            if (frontierSize <= SPLIT_THRESHOLD)
+                expand(0, frontierSize, neighborBuffer, claimedBuffer);
+            else
+                pool.invoke(new ExpandTask(0, frontierSize));
+
+            int[] temp = frontier;
+            frontier = nextFrontier;
+            nextFrontier = temp;
+            frontierSize = nextSize.get();
+        }
+
+        expanded = expandedCount.get();
+
+        return reachedGoal;
+    }
+
+    /**
+     * Expands the cells <code>[from, to)</code> of the current frontier and adds the cells it claims to the next one
+     *
+     * @param neighbors scratch buffer of at least {@link CompactGrid#MAX_NEIGHBORS} elements
+     * @param claimed scratch buffer of at least <code>(to - from) * MAX_NEIGHBORS</code> elements
+     */
+    private void expand(int from, int to, int[] neighbors, int[] claimed) {
+        int claimedCount = 0;
+        int expandedHere = 0;
+
+        for (int i = from; i < to && !goalReached; i++) {
+            pause();
+
+            int c = frontier[i];
+            double g = context.getGCost(c);
+
+            expandedHere++;
+            markClosed(c);
+
+            int count = neighbors(c, neighbors);
+            for (int j = 0; j < count; j++) {
+                int n = neighbors[j];
+
+                // another thread may have got here first
+                if (!reached.add(n))
+                    continue;
+
+                markOpen(n);
+
+                context.reach(n, c, g + map.moveCost(c, n));
+                claimed[claimedCount++] = n;
+
+                if (map.isGoal(n)) {
+                    reachedGoal = n;
+                    goalReached = true;
+                }
+            }
+        }
+
+        expandedCount.addAndGet(expandedHere);
+
+        int offset = nextSize.getAndAdd(claimedCount);
+        System.arraycopy(claimed, 0, nextFrontier, offset, claimedCount);
+    }
+
+    /**
+     * Expands the cells <code>[from, to)</code> of the current frontier, splitting the range while it's bigger than
+     * {@link #SPLIT_THRESHOLD}
+     */
+    private class ExpandTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        private ExpandTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ExpandTask(from, mid), new ExpandTask(mid, to));
+                return;
+            }
+
+            Scratch scratch = SCRATCH.get();
+            expand(from, to, scratch.neighbors, scratch.claimed);
+        }
+
+    }
+
+    /**
+     * Buffers big enough to expand any piece of a frontier
+     */
+    private static class Scratch {
+
+        private final int[] neighbors = new int[CompactGrid.MAX_NEIGHBORS];
+        private final int[] claimed = new int[SPLIT_THRESHOLD * CompactGrid.MAX_NEIGHBORS];
+
+    }
+
+}
@@ -0,0 +1,45 @@
+package search.pathfinder;
+
+import search.grid.CompactGrid;
+
+import java.util.Arrays;
+
+/**
+ * Runs a path through {@link PathProcessor}s one after another. Since every step works in place, a path found once
+ * can be turned into waypoints without allocating anything but the result
+ */
+public class PathPipeline implements PathProcessor {
+
+    /**
+     * Turns a path of neighboring cells into as few waypoints as string pulling finds, joined by straight lines
+     */
+    public static final PathPipeline WAYPOINTS = new PathPipeline(new CollinearPruner(), new StringPuller());
+
+    private final PathProcessor[] steps;
+
+    /**
+     * @param steps steps to run, in order
+     */
+    public PathPipeline(PathProcessor... steps) {
+        this.steps = steps.clone();
+    }
+
+    @Override
+    public int process(CompactGrid map, int[] path, int length) {
+        for (PathProcessor step : steps)
+            length = step.process(map, path, length);
+
+        return length;
+    }
+
+    /**
+     * @param map map the path is on
+     * @param path cell ids of the path from its first cell to its last, left as it is
+     * @return the points kept, in a new array
+     */
+    public int[] process(CompactGrid map, int[] path) {
+        int[] points = path.clone();
+        return Arrays.copyOf(points, process(map, points, points.length));
+    }
+
+}
@@ -0,0 +1,19 @@
+package search.pathfinder;
+
+import search.grid.CompactGrid;
+
+/**
+ * A step in turning the cells of a path into the waypoints an agent walks between. Steps rewrite the path in place,
+ * so a {@link PathPipeline} of them allocates nothing
+ */
+public interface PathProcessor {
+
+    /**
+     * @param map map the path is on
+     * @param path cell ids of the path from its first cell to its last, overwritten with the points kept
+     * @param length number of cells of the path at the front of <code>path</code>
+     * @return number of points kept at the front of <code>path</code>. The first and last cells are always kept
+     */
+    int process(CompactGrid map, int[] path, int length);
+
+}
@@ -0,0 +1,149 @@
+package search.pathfinder;
+
+/**
+ * The outcome of a search: the path that was found as cell ids, its cost and how much work it took to find it. The
+ * coordinates and the text of the path are only worked out the first time they're asked for, so callers that only
+ * need the ids never pay for them
+ */
+public class PathResult {
+
+    /**
+     * Cell ids of the path from the start cell to the goal cell, <code>null</code> if no path was found
+     */
+    private final int[] path;
+
+    /**
+     * Number of columns of the map, to turn cell ids into coordinates
+     */
+    private final int cols;
+
+    /**
+     * Cost of the path, <code>-1</code> if no path was found
+     */
+    private final double cost;
+
+    /**
+     * Number of cells the searcher expanded
+     */
+    private final int expandedCount;
+
+    /**
+     * Wall-clock time the search took
+     */
+    private final long elapsedNanos;
+
+    /**
+     * Row and column of each cell of the path one after the other, <code>null</code> until asked for
+     */
+    private int[] coordinates;
+
+    /**
+     * The path as text, <code>null</code> until asked for
+     */
+    private String text;
+
+    /**
+     * @param path cell ids of the path from the start cell to the goal cell, <code>null</code> if no path was found
+     * @param cols number of columns of the map the path is on
+     * @param cost cost of the path, <code>-1</code> if no path was found
+     * @param expandedCount number of cells the searcher expanded
+     * @param elapsedNanos wall-clock time the search took
+     */
+    public PathResult(int[] path, int cols, double cost, int expandedCount, long elapsedNanos) {
+        this.path = path;
+        this.cols = cols;
+        this.cost = cost;
+        this.expandedCount = expandedCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return whether or not a path was found
+     */
+    public boolean isFound() {
+        return path != null;
+    }
+
+    /**
+     * @return cell ids of the path from the start cell to the goal cell, <code>null</code> if no path was found.
+     * Shared, not copied
+     */
+    public int[] getPath() {
+        return path;
+    }
+
+    /**
+     * @return number of cells on the path, <code>0</code> if no path was found
+     */
+    public int getLength() {
+        return (path == null) ? 0 : path.length;
+    }
+
+    /**
+     * @param index position on the path, from <code>0</code> for the start cell
+     * @return row of the cell at that position
+     */
+    public int getRow(int index) {
+        return path[index] / cols;
+    }
+
+    /**
+     * @param index position on the path, from <code>0</code> for the start cell
+     * @return column of the cell at that position
+     */
+    public int getCol(int index) {
+        return path[index] % cols;
+    }
+
+    /**
+     * @return row and column of each cell of the path one after the other, so cell <code>i</code> is at
+     * <code>[2 * i]</code> and <code>[2 * i + 1]</code>. Empty if no path was found. Worked out once and shared
+     */
+    public int[] getCoordinates() {
+        if (coordinates == null) {
+            int[] out = new int[2 * getLength()];
+            for (int i = 0; i < getLength(); i++) {
+                out[2 * i] = path[i] / cols;
+                out[2 * i + 1] = path[i] % cols;
+            }
+
+            coordinates = out;
+        }
+
+        return coordinates;
+    }
+
+    public double getCost() {
+        return cost;
+    }
+
+    public int getExpandedCount() {
+        return expandedCount;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return cell ids of the path from the goal cell back to the start cell, joined by <code>" &lt;- "</code>. Empty
+     * if no path was found. Worked out once
+     */
+    @Override
+    public String toString() {
+        if (text == null) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = getLength() - 1; i >= 0; i--) {
+                sb.append(path[i]);
+
+                if (i > 0)
+                    sb.append(" <- ");
+            }
+
+            text = sb.toString();
+        }
+
+        return text;
+    }
+
+}
@@ -0,0 +1,185 @@
+package search.pathfinder;
+
+import search.util.IndexedMinHeap;
+import search.util.VisitedSet;
+
+import java.util.Arrays;
+
+/**
+ * A <code>SearchContext</code> holds the state of one search in flat arrays indexed by cell id: g-costs, parents
+ * and how many times each cell was reached, plus the closed set and a reusable open list.
+ *
+ * <p>None of this lives on the cells, so any number of searchers can work over the same grid at the same time as
+ * long as each one has its own context. A context can be reused for query after query: {@link #reset()} doesn't
+ * clear the arrays, it bumps a stamp so every entry written by an earlier search reads as unset</p>
+ */
+public class SearchContext {
+
+    /**
+     * Number of cells the context can hold
+     */
+    private final int size;
+
+    private final double[] gCosts;
+    private final int[] parents;
+    private final int[] reachedCounts;
+
+    /**
+     * Search that last wrote each entry. An entry is only valid if its stamp is {@link #stamp}
+     */
+    private final int[] stamps;
+
+    /**
+     * Stamp of the current search
+     */
+    private int stamp;
+
+    private final VisitedSet closed;
+
+    /**
+     * Created the first time a searcher asks for it
+     */
+    private IndexedMinHeap open;
+
+    /**
+     * Constructs a context for a grid with <code>size</code> cells
+     *
+     * @param size number of cells, <code>rows * cols</code>
+     */
+    public SearchContext(int size) {
+        this.size = size;
+
+        gCosts = new double[size];
+        parents = new int[size];
+        reachedCounts = new int[size];
+        stamps = new int[size];
+        stamp = 1;
+
+        closed = new VisitedSet(size);
+    }
+
+    /**
+     * Forgets everything about the last search. Doesn't depend on the number of cells
+     */
+    public void reset() {
+        stamp++;
+
+        // only happens after 2^32 searches, but the stamps would be ambiguous after wrapping around
+        if (stamp == 0) {
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+
+        closed.clear();
+
+        if (open != null)
+            open.clear();
+    }
+
+    private void touch(int id) {
+        if (stamps[id] != stamp) {
+            stamps[id] = stamp;
+            gCosts[id] = Double.POSITIVE_INFINITY;
+            parents[id] = -1;
+            reachedCounts[id] = 0;
+        }
+    }
+
+    /**
+     * @param id id of the cell
+     * @return whether or not the cell has been reached in the current search
+     */
+    public boolean isReached(int id) {
+        return stamps[id] == stamp;
+    }
+
+    /**
+     * @param id id of the cell
+     * @return cost of the best known path to the cell, <code>Double.POSITIVE_INFINITY</code> if it hasn't been reached
+     */
+    public double getGCost(int id) {
+        return (stamps[id] == stamp) ? gCosts[id] : Double.POSITIVE_INFINITY;
+    }
+
+    public void setGCost(int id, double gCost) {
+        touch(id);
+        gCosts[id] = gCost;
+    }
+
+    /**
+     * @param id id of the cell
+     * @return parent of the cell, <code>-1</code> if it has none
+     */
+    public int getParent(int id) {
+        return (stamps[id] == stamp) ? parents[id] : -1;
+    }
+
+    public void setParent(int id, int parent) {
+        touch(id);
+        parents[id] = parent;
+    }
+
+    /**
+     * Sets the parent and g-cost of a cell in one go
+     *
+     * @param id id of the cell
+     * @param parent new parent
+     * @param gCost new g-cost
+     */
+    public void reach(int id, int parent, double gCost) {
+        touch(id);
+        parents[id] = parent;
+        gCosts[id] = gCost;
+    }
+
+    /**
+     * Follows the parents from a cell back to a cell that has none, reading the arrays straight rather than going
+     * through {@link #getParent(int)}
+     *
+     * @param id id of the last cell of the path
+     * @return cell ids of the path, from the cell without a parent to <code>id</code>
+     */
+    public int[] trace(int id) {
+        int length = 0;
+        for (int curr = id; curr >= 0; curr = (stamps[curr] == stamp) ? parents[curr] : -1)
+            length++;
+
+        int[] path = new int[length];
+        for (int curr = id; curr >= 0; curr = (stamps[curr] == stamp) ? parents[curr] : -1)
+            path[--length] = curr;
+
+        return path;
+    }
+
+    /**
+     * @param id id of the cell
+     * @return number of times the cell was reached again after being expanded
+     */
+    public int getReachedCount(int id) {
+        return (stamps[id] == stamp) ? reachedCounts[id] : 0;
+    }
+
+    public void setReachedCount(int id, int reachedCount) {
+        touch(id);
+        reachedCounts[id] = reachedCount;
+    }
+
+    public VisitedSet getClosed() {
+        return closed;
+    }
+
+    /**
+     * @return an empty-at-reset open list that can hold every cell
+     */
+    public IndexedMinHeap getOpen() {
+        if (open == null)
+            open = new IndexedMinHeap(size);
+
+        return open;
+    }
+
+    public int size() {
+        return size;
+    }
+
+}
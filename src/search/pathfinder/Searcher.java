@@ -1,6 +1,7 @@
 package search.pathfinder;
 
 import search.grid.Cell;
+import search.grid.CompactGrid;
 import search.grid.Grid;
 
 import java.awt.*;
@@ -10,61 +11,344 @@ public abstract class Searcher {
     public static final int SEARCHER_DELAY = 5;
     public static final int PATH_TRACER_DELAY = 5;
 
+    /**
+     * Color of a <code>Cell</code> that is waiting to be expanded
+     */
+    public static final Color OPEN_COLOR = Color.YELLOW;
+
+    /**
+     * Color of a <code>Cell</code> that has been expanded
+     */
+    public static final Color CLOSED_COLOR = new Color(157, 255, 26);
+
+    /**
+     * Color of a <code>Cell</code> on the path that was found
+     */
+    public static final Color PATH_COLOR = Color.GREEN;
+
+    /**
+     * Colors an expanded <code>Cell</code> cycles through each time it is reached again
+     */
+    public static final Color[] SEEN_COLORS = {
+            new Color(245, 11, 255),
+            new Color(80, 242, 255),
+            new Color(255, 144, 4),
+            new Color(255, 61, 146),
+            new Color(159, 2, 255)
+    };
+
     protected Grid grid;
 
+    /**
+     * Walkability, start and goal the search runs over. The <code>Grid</code> is only used to show progress
+     */
+    protected CompactGrid map;
+
     protected boolean showMultipleColors;
     protected boolean done;
 
+    /**
+     * Whether or not the current search is running without any delays or changes to the <code>Grid</code>
+     */
+    protected boolean headless;
+
+    /**
+     * Id of the start cell of the current search
+     */
+    protected int start;
+
+    /**
+     * Id of the first goal cell of the current search. Searchers that look for the nearest of several goal cells stop
+     * at any cell {@link CompactGrid#isGoal(int)} accepts instead
+     */
+    protected int goal;
+
+    /**
+     * State of the current search. Created on the first search and reused by every search after it
+     */
+    protected SearchContext context;
+
+    /**
+     * Number of cells expanded in the current search
+     */
+    protected int expanded;
+
+    /**
+     * Scratch buffer the neighbors of a cell are written to
+     */
+    protected final int[] neighborBuffer = new int[CompactGrid.MAX_NEIGHBORS];
+
+    /**
+     * Id of the goal cell found by the last visual search, <code>-1</code> if none was found. A <code>Cell</code> can
+     * stand for more than one map cell, so {@link #path(Cell)} starts from here
+     */
+    private int found = -1;
+
+    /**
+     * Wall-clock time the last visual search took, delays included
+     */
+    private long elapsedNanos;
+
     public Searcher(Grid grid, boolean showMultipleColors) {
-        this.grid = grid;
+        setGrid(grid);
         this.showMultipleColors = showMultipleColors;
     }
 
+    /**
+     * Runs the searching algorithm while showing its progress on the <code>Grid</code>. Needs a <code>Grid</code>
+     *
+     * @return the goal cell if path is found, otherwise null
+     */
+    public Cell search() {
+        headless = false;
+
+        long startTime = System.nanoTime();
+        found = run();
+        elapsedNanos = System.nanoTime() - startTime;
+
+        return (found < 0) ? null : grid.getCell(found);
+    }
+
+    /**
+     * Runs the searching algorithm at full speed. Nothing sleeps and the <code>Grid</code> isn't modified
+     *
+     * @return the path, its cost and statistics about the search
+     */
+    public PathResult searchHeadless() {
+        headless = true;
+
+        try {
+            long startTime = System.nanoTime();
+            int found = run();
+            long elapsed = System.nanoTime() - startTime;
+
+            return result(found, elapsed);
+        } finally {
+            headless = false;
+        }
+    }
+
+    /**
+     * @param found id of the goal cell the search found, <code>-1</code> if it found none
+     * @param elapsed wall-clock time the search took
+     * @return the path to the goal cell, its cost and statistics about the search
+     */
+    private PathResult result(int found, long elapsed) {
+        if (found < 0)
+            return new PathResult(null, map.getCols(), -1, expanded, elapsed);
+
+        return new PathResult(trace(found), map.getCols(), context.getGCost(found), expanded, elapsed);
+    }
+
     /**
      * The searching algorithm used
      * ex. A*, DFS, Best-first, Breadth-first, etc
      *
-     * @return the goal cell if path is found, otherwise null
+     * <p>State is kept in the {@link #context}, never on the cells. Anything that is only there to be looked at goes
+     * through {@link #pause()} and the <code>mark</code> methods</p>
+     *
+     * @return id of the goal cell if a path is found, otherwise <code>-1</code>
+     */
+    protected abstract int find();
+
+    /**
+     * Called after the per-search state has been reset and before {@link #find()}
+     */
+    protected void prepare() {
+    }
+
+    private int run() {
+        int size = map.size();
+
+        if (context == null || context.size() != size)
+            context = new SearchContext(size);
+
+        context.reset();
+        expanded = 0;
+
+        start = map.getStart();
+        goal = map.getGoal();
+
+        if (start < 0)
+            return -1;
+
+        prepare();
+
+        return find();
+    }
+
+    /**
+     * Writes the ids of the neighbors of a cell into <code>out</code>
+     *
+     * @param id id of the cell
+     * @param out array to write the neighbor ids into
+     * @return number of neighbors written
+     */
+    protected int neighbors(int id, int[] out) {
+        return map.neighbors(id, out);
+    }
+
+    /**
+     * Sleeps for {@link #SEARCHER_DELAY} unless the search is headless
+     */
+    protected void pause() {
+        if (headless)
+            return;
+
+        try {
+            Thread.sleep(SEARCHER_DELAY);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Shows that a cell is waiting to be expanded
+     *
+     * @param id id of the cell
+     */
+    protected void markOpen(int id) {
+        if (headless)
+            return;
+
+        Cell c = grid.getCell(id);
+        if (!context.getClosed().contains(id) && !c.isStart() && !c.isGoal())
+            c.setColor(OPEN_COLOR);
+    }
+
+    /**
+     * Shows that a cell has been expanded
+     *
+     * @param id id of the cell
+     */
+    protected void markClosed(int id) {
+        if (headless)
+            return;
+
+        Cell c = grid.getCell(id);
+        if (!c.isStart() && !c.isGoal())
+            c.setColor(CLOSED_COLOR);
+    }
+
+    /**
+     * Shows that an expanded cell was reached again, if {@link #showMultipleColors} is set
+     *
+     * @param id id of the cell
+     */
+    protected void markRevisited(int id) {
+        if (headless || !showMultipleColors)
+            return;
+
+        Cell c = grid.getCell(id);
+        if (c.isStart() || c.isGoal())
+            return;
+
+        int reached = context.getReachedCount(id);
+        if (c.getColor().equals(SEEN_COLORS[reached]) && reached < SEEN_COLORS.length - 1)
+            context.setReachedCount(id, ++reached);
+
+        c.setColor(SEEN_COLORS[reached]);
+    }
+
+    /**
+     * Follows the parents from a cell back to the start cell
+     *
+     * @param id id of the last cell of the path
+     * @return cell ids of the path, from the start cell to <code>id</code>
+     */
+    protected int[] trace(int id) {
+        return context.trace(id);
+    }
+
+    /**
+     * Joins the path a backward search found from the goal cell to <code>meet</code> onto the path in {@link #context}
+     * from the start cell to <code>meet</code>, so {@link #trace(int)} and {@link #path(Cell)} can follow the whole path
+     * back from the goal cell
+     *
+     * @param meet id of a cell reached by both searches
+     * @param backward state of the backward search. Its parents point towards the goal cell
+     * @return id of the goal cell
+     */
+    protected int splice(int meet, SearchContext backward) {
+        int curr = meet;
+        double g = context.getGCost(meet);
+
+        for (int next = backward.getParent(curr); next >= 0; next = backward.getParent(curr)) {
+            g += map.moveCost(curr, next);
+            context.reach(next, curr, g);
+            curr = next;
+        }
+
+        return curr;
+    }
+
+    /**
+     * Returns the path found by the last {@link #search()} and shows it on the <code>Grid</code>, one cell at a time
+     * from the goal cell back to the start cell
+     *
+     * @param c cell returned by {@link #search()}, <code>null</code> if no path was found
+     * @return the path, its cost and statistics about the search
      */
-    public abstract Cell search();
+    public PathResult path(Cell c) {
+        PathResult result = result((c == null) ? -1 : found, elapsedNanos);
+
+        if (result.isFound())
+            showPath(result.getPath());
+
+        done = true;
+        return result;
+    }
 
     /**
-     * Returns the path starting at Cell <code>c</code> by backtracking using the parent cells
+     * Colors the cells of a path, sleeping for {@link #PATH_TRACER_DELAY} after each one. Does nothing if the search
+     * is headless or there is no <code>Grid</code>
      *
-     * @param c cell to find path from by backtracking to starting cell
-     * @return the path as a string
+     * @param path cell ids of the path from the start cell to the goal cell
      */
-    public String[] path(Cell c) {
-        Cell curr = c;
-        int cost = 0;
-        StringBuilder path = new StringBuilder();
+    private void showPath(int[] path) {
+        if (headless || grid == null)
+            return;
 
-        while (curr != null) {
-            if (!curr.isStart() && !curr.isGoal())
-                curr.setColor(Color.GREEN);
+        for (int i = path.length - 1; i >= 0; i--) {
+            Cell cell = grid.getCell(path[i]);
+            if (!cell.isStart() && !cell.isGoal())
+                cell.setColor(PATH_COLOR);
 
             try {
                 Thread.sleep(PATH_TRACER_DELAY);
             } catch (InterruptedException e) {
                 e.printStackTrace();
             }
-
-            path.append(curr.getName());
-            curr = curr.getParent();
-
-            if (curr != null) {
-                path.append(" <- ");
-                cost++;
-            }
         }
-
-        System.out.println(cost);
-        done = true;
-        return new String[]{path.toString(), "" + cost};
     }
 
     public void setGrid(Grid grid) {
         this.grid = grid;
+        this.map = (grid == null) ? null : grid.getMap();
+    }
+
+    /**
+     * Sets the map to search without a <code>Grid</code> to show progress on. Only {@link #searchHeadless()} can be
+     * used until a <code>Grid</code> is set
+     *
+     * @param map map to search
+     */
+    public void setMap(CompactGrid map) {
+        this.grid = null;
+        this.map = map;
+    }
+
+    public SearchContext getContext() {
+        return context;
+    }
+
+    /**
+     * Sets the context the next searches will use. A context must not be shared by searches that run at the same time
+     *
+     * @param context context to use, sized for the grid
+     */
+    public void setContext(SearchContext context) {
+        this.context = context;
     }
 
     public boolean isDone() {
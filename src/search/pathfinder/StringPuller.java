@@ -0,0 +1,31 @@
+package search.pathfinder;
+
+import search.grid.CompactGrid;
+
+/**
+ * String pulling: pulls the path tight around the walls like a string, so it only turns at the corners it has to go
+ * around. Walking the path from the first point, a point is dropped whenever the last point kept has a
+ * {@link CompactGrid#hasLineOfSight(int, int) line of sight} to the point after it. That is one line of sight check
+ * per point, each reading one walkability bit per cell the line crosses, and the path is rewritten in place.
+ *
+ * <p>A straight line is only shorter when every cell costs the same, since it can run through expensive cells the path
+ * went around. On maps with terrain costs the path is left as it is</p>
+ */
+public class StringPuller implements PathProcessor {
+
+    @Override
+    public int process(CompactGrid map, int[] path, int length) {
+        if (length <= 2 || !map.hasUniformCosts())
+            return length;
+
+        int kept = 1;
+        for (int i = 1; i < length - 1; i++) {
+            if (!map.hasLineOfSight(path[kept - 1], path[i + 1]))
+                path[kept++] = path[i];
+        }
+
+        path[kept++] = path[length - 1];
+        return kept;
+    }
+
+}
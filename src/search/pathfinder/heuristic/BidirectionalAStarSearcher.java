@@ -0,0 +1,165 @@
+package search.pathfinder.heuristic;
+
+import search.grid.Grid;
+import search.pathfinder.SearchContext;
+import search.util.IndexedMinHeap;
+import search.util.VisitedSet;
+
+/**
+ * An A* run from the start cell and the goal cell at the same time, meeting in the middle. Each search only has to
+ * get about halfway, which roughly halves the radius that gets explored on open maps.
+ *
+ * <p>Both searches use the average of the two heuristics as their potential: the forward search orders cells by
+ * <code>g + (h(goal) - h(start)) / 2</code> and the backward search by <code>g + (h(start) - h(goal)) / 2</code>.
+ * Unlike plain heuristics these agree with each other, which gives a simple stopping rule that still finds a shortest
+ * path: once the smallest keys of the two open lists add up to at least the cost of the best path found so far, no
+ * shorter path can be left</p>
+ *
+ * @see <a href="https://www.cs.princeton.edu/courses/archive/spr06/cos423/Handouts/EPP%20shortest%20path%20algorithms.pdf">
+ * Goldberg and Harrelson, Computing the Shortest Path: A* Search Meets Graph Theory</a>
+ */
+public class BidirectionalAStarSearcher extends HeuristicSearcher {
+
+    /**
+     * State of the search from the goal cell. Its parents point towards the goal cell
+     */
+    protected SearchContext backward;
+
+    private int startRow;
+    private int startCol;
+
+    /**
+     * Cost of the best path found so far
+     */
+    private double best;
+
+    /**
+     * Cell the best path so far goes through, <code>-1</code> if there is none yet
+     */
+    private int meet;
+
+    public BidirectionalAStarSearcher(Grid grid, boolean showMultipleColors) {
+        super(grid, showMultipleColors);
+    }
+
+    @Override
+    protected void prepare() {
+        super.prepare();
+
+        startRow = map.getRow(start);
+        startCol = map.getCol(start);
+
+        if (backward == null || backward.size() != context.size())
+            backward = new SearchContext(context.size());
+
+        backward.reset();
+
+        best = Double.POSITIVE_INFINITY;
+        meet = -1;
+    }
+
+    @Override
+    protected int find() {
+        if (goal < 0)
+            return -1;
+
+        context.setGCost(start, 0);
+        if (start == goal)
+            return goal;
+
+        IndexedMinHeap forwardOpen = context.getOpen();
+        IndexedMinHeap backwardOpen = backward.getOpen();
+
+        forwardOpen.offer(start, potential(start), heuristic(start));
+
+        backward.setGCost(goal, 0);
+        backwardOpen.offer(goal, -potential(goal), startHeuristic(goal));
+
+        while (!forwardOpen.isEmpty() && !backwardOpen.isEmpty()) {
+            if (forwardOpen.peekKey() + backwardOpen.peekKey() >= best)
+                break;
+
+            if (forwardOpen.peekKey() <= backwardOpen.peekKey())
+                expand(context, backward, true);
+            else
+                expand(backward, context, false);
+        }
+
+        return (meet < 0) ? -1 : splice(meet, backward);
+    }
+
+    /**
+     * Expands the best cell of one of the searches
+     *
+     * @param own search to expand
+     * @param other the search going the other way
+     * @param isForward whether or not <code>own</code> is the search from the start cell
+     */
+    private void expand(SearchContext own, SearchContext other, boolean isForward) {
+        IndexedMinHeap open = own.getOpen();
+        VisitedSet closed = own.getClosed();
+
+        int min = open.poll();
+
+        closed.add(min);
+        expanded++;
+        markClosed(min);
+
+        int count = neighbors(min, neighborBuffer);
+        for (int i = 0; i < count; i++) {
+            pause();
+
+            int n = neighborBuffer[i];
+
+            if (closed.contains(n)) {
+                if (isForward)
+                    markRevisited(n);
+
+                continue;
+            }
+
+            double g = own.getGCost(min) + (isForward ? map.moveCost(min, n) : map.moveCost(n, min));
+
+            // already queued with a path that is at least as short
+            if (own.getGCost(n) <= g)
+                continue;
+
+            markOpen(n);
+
+            own.reach(n, min, g);
+
+            if (isForward)
+                open.offer(n, g + potential(n), heuristic(n));
+            else
+                open.offer(n, g - potential(n), startHeuristic(n));
+
+            double total = g + other.getGCost(n);
+            if (total < best) {
+                best = total;
+                meet = n;
+            }
+        }
+    }
+
+    /**
+     * Potential of the forward search. The backward search uses its negative
+     *
+     * @param id id of the cell
+     * @return average of the estimated cost to the goal cell and the negated estimated cost to the start cell
+     */
+    protected double potential(int id) {
+        return (heuristic(id) - startHeuristic(id)) / 2;
+    }
+
+    /**
+     * @param id id of the cell
+     * @return estimated cost of getting from the cell to the start cell
+     */
+    protected double startHeuristic(int id) {
+        int dx = Math.abs(startRow - map.getRow(id));
+        int dy = Math.abs(startCol - map.getCol(id));
+
+        return (dx + dy) + (Math.sqrt(2) - 2) * Math.min(dx, dy);
+    }
+
+}
@@ -0,0 +1,574 @@
+package search.pathfinder.heuristic;
+
+import search.grid.CompactGrid;
+import search.pathfinder.SearchContext;
+import search.util.IndexedMinHeap;
+
+import java.util.Arrays;
+
+/**
+ * A <code>ClusterGraph</code> is the abstract graph HPA* searches on. The map is cut into square clusters of
+ * {@link #getClusterSize()} cells. Wherever two neighboring clusters share an open stretch of border, the cells on
+ * either side of it become nodes joined by an edge, one pair in the middle of a short stretch and one at each end of
+ * a long one. Inside each cluster every pair of nodes that can reach each other without leaving the cluster is joined
+ * by an edge costing the length of the shortest such path.
+ *
+ * <p>Everything is worked out once, when the graph is constructed, and is only valid for the map as it was then.
+ * {@link #isCurrent()} tells whether it still is. Queries use {@link #connect(int, int[], double[])} to join the start and goal cells
+ * onto the nodes of their clusters and {@link #findLocalPath(int, int, int[])} to turn an edge back into cells, both
+ * of which only ever look at a single cluster</p>
+ *
+ * @see <a href="https://webdocs.cs.ualberta.ca/~mmueller/ps/hpastar.pdf">Botea, Muller and Schaeffer, Near Optimal
+ * Hierarchical Path-Finding</a>
+ */
+public class ClusterGraph {
+
+    public static final int DEFAULT_CLUSTER_SIZE = 16;
+
+    /**
+     * Open stretches of border at least this long get a node pair at each end instead of one in the middle
+     */
+    public static final int LONG_ENTRANCE = 6;
+
+    private final CompactGrid map;
+    private final CompactGrid.Connectivity connectivity;
+    private final CompactGrid.CornerCutting cornerCutting;
+
+    /**
+     * {@link CompactGrid#getVersion()} of the map when the graph was built
+     */
+    private final long version;
+
+    private final int clusterSize;
+    private final int clusterRows;
+    private final int clusterCols;
+
+    private int nodeCount;
+
+    /**
+     * Cell id of each node
+     */
+    private int[] nodeCells;
+
+    /**
+     * Node of each cell, <code>-1</code> if the cell isn't a node
+     */
+    private final int[] cellNodes;
+
+    /**
+     * Nodes of cluster <code>c</code> are <code>clusterNodes[clusterStarts[c] .. clusterStarts[c + 1])</code>
+     */
+    private int[] clusterStarts;
+    private int[] clusterNodes;
+
+    /**
+     * Edges of node <code>n</code> are <code>[edgeStarts[n], edgeStarts[n + 1])</code>
+     */
+    private int[] edgeStarts;
+    private int[] edgeTargets;
+    private double[] edgeCosts;
+
+    /**
+     * Edges found while building, before they are grouped by node
+     */
+    private int edgeCount;
+    private int[] edgeSources;
+
+    /**
+     * State of searches that stay inside one cluster, indexed by the position of a cell in its cluster
+     */
+    private final SearchContext local;
+    private final int[] localBuffer = new int[CompactGrid.MAX_NEIGHBORS];
+
+    /**
+     * Bounds of the cluster the last local search ran in
+     */
+    private int localTop;
+    private int localLeft;
+    private int localBottom;
+    private int localRight;
+
+    /**
+     * Builds the graph for the map as it is now
+     *
+     * @param map map to build the graph of
+     * @param clusterSize width and height of a cluster in cells
+     */
+    public ClusterGraph(CompactGrid map, int clusterSize) {
+        if (clusterSize < 2)
+            throw new IllegalArgumentException("Cluster size must be at least 2, was " + clusterSize);
+
+        this.map = map;
+        this.connectivity = map.getConnectivity();
+        this.cornerCutting = map.getCornerCutting();
+        this.version = map.getVersion();
+        this.clusterSize = clusterSize;
+
+        clusterRows = (map.getRows() + clusterSize - 1) / clusterSize;
+        clusterCols = (map.getCols() + clusterSize - 1) / clusterSize;
+
+        cellNodes = new int[map.size()];
+        Arrays.fill(cellNodes, -1);
+
+        nodeCells = new int[64];
+        edgeSources = new int[256];
+        edgeTargets = new int[256];
+        edgeCosts = new double[256];
+
+        local = new SearchContext(clusterSize * clusterSize);
+
+        buildEntrances();
+        groupNodes();
+        buildIntraEdges();
+        groupEdges();
+    }
+
+    /**
+     * Adds a node pair for every open stretch of border between neighboring clusters
+     */
+    private void buildEntrances() {
+        int rows = map.getRows();
+        int cols = map.getCols();
+
+        // borders between a cluster and the one to its right
+        for (int col = clusterSize - 1; col < cols - 1; col += clusterSize) {
+            for (int top = 0; top < rows; top += clusterSize) {
+                int bottom = Math.min(top + clusterSize, rows);
+                int runStart = -1;
+
+                for (int row = top; row <= bottom; row++) {
+                    boolean open = row < bottom && map.isWalkable(row, col) && map.isWalkable(row, col + 1);
+
+                    if (open && runStart < 0) {
+                        runStart = row;
+                    } else if (!open && runStart >= 0) {
+                        for (int r : entrances(runStart, row - 1))
+                            addTransition(map.getId(r, col), map.getId(r, col + 1));
+
+                        runStart = -1;
+                    }
+                }
+            }
+        }
+
+        // borders between a cluster and the one below it
+        for (int row = clusterSize - 1; row < rows - 1; row += clusterSize) {
+            for (int left = 0; left < cols; left += clusterSize) {
+                int right = Math.min(left + clusterSize, cols);
+                int runStart = -1;
+
+                for (int col = left; col <= right; col++) {
+                    boolean open = col < right && map.isWalkable(row, col) && map.isWalkable(row + 1, col);
+
+                    if (open && runStart < 0) {
+                        runStart = col;
+                    } else if (!open && runStart >= 0) {
+                        for (int c : entrances(runStart, col - 1))
+                            addTransition(map.getId(row, c), map.getId(row + 1, c));
+
+                        runStart = -1;
+                    }
+                }
+            }
+        }
+
+        if (connectivity == CompactGrid.Connectivity.EIGHT && cornerCutting == CompactGrid.CornerCutting.ALWAYS)
+            buildSqueezes();
+    }
+
+    /**
+     * Adds a node pair for every diagonal move across a border that squeezes between two walls. Any other diagonal
+     * move across a border has a walkable cell beside it, so the orthogonal entrances already connect its clusters
+     */
+    private void buildSqueezes() {
+        int rows = map.getRows();
+        int cols = map.getCols();
+
+        // across a border between a cluster and the one to its right, including where it meets one below
+        for (int col = clusterSize - 1; col < cols - 1; col += clusterSize) {
+            for (int row = 0; row < rows - 1; row++)
+                addSqueezes(row, col);
+        }
+
+        // across a border between a cluster and the one below it, where the move stays in one column of clusters
+        for (int row = clusterSize - 1; row < rows - 1; row += clusterSize) {
+            for (int col = 0; col < cols - 1; col++) {
+                if ((col + 1) % clusterSize != 0)
+                    addSqueezes(row, col);
+            }
+        }
+    }
+
+    /**
+     * Adds a node pair for each diagonal of the square of cells with its top left corner at a cell if the move along it
+     * squeezes between the other two cells
+     */
+    private void addSqueezes(int row, int col) {
+        boolean topLeft = map.isWalkable(row, col);
+        boolean topRight = map.isWalkable(row, col + 1);
+        boolean botLeft = map.isWalkable(row + 1, col);
+        boolean botRight = map.isWalkable(row + 1, col + 1);
+
+        if (topLeft && botRight && !topRight && !botLeft)
+            addTransition(map.getId(row, col), map.getId(row + 1, col + 1));
+
+        if (topRight && botLeft && !topLeft && !botRight)
+            addTransition(map.getId(row, col + 1), map.getId(row + 1, col));
+    }
+
+    /**
+     * @param first first position of an open stretch of border
+     * @param last last position of the stretch
+     * @return positions along the stretch to put node pairs at
+     */
+    private static int[] entrances(int first, int last) {
+        if (last - first + 1 >= LONG_ENTRANCE)
+            return new int[]{first, last};
+
+        return new int[]{(first + last) >>> 1};
+    }
+
+    /**
+     * Makes nodes of two cells on either side of a border and joins them both ways
+     */
+    private void addTransition(int a, int b) {
+        int nodeA = addNode(a);
+        int nodeB = addNode(b);
+        double cost = map.moveCost(a, b);
+
+        addEdge(nodeA, nodeB, cost);
+        addEdge(nodeB, nodeA, cost);
+    }
+
+    private int addNode(int cell) {
+        if (cellNodes[cell] >= 0)
+            return cellNodes[cell];
+
+        if (nodeCount == nodeCells.length)
+            nodeCells = Arrays.copyOf(nodeCells, nodeCount * 2);
+
+        nodeCells[nodeCount] = cell;
+        cellNodes[cell] = nodeCount;
+
+        return nodeCount++;
+    }
+
+    private void addEdge(int from, int to, double cost) {
+        if (edgeCount == edgeSources.length) {
+            edgeSources = Arrays.copyOf(edgeSources, edgeCount * 2);
+            edgeTargets = Arrays.copyOf(edgeTargets, edgeCount * 2);
+            edgeCosts = Arrays.copyOf(edgeCosts, edgeCount * 2);
+        }
+
+        edgeSources[edgeCount] = from;
+        edgeTargets[edgeCount] = to;
+        edgeCosts[edgeCount] = cost;
+        edgeCount++;
+    }
+
+    /**
+     * Fills {@link #clusterNodes} with the nodes grouped by cluster
+     */
+    private void groupNodes() {
+        int clusters = clusterRows * clusterCols;
+
+        clusterStarts = new int[clusters + 1];
+        for (int n = 0; n < nodeCount; n++)
+            clusterStarts[getCluster(nodeCells[n]) + 1]++;
+
+        for (int c = 0; c < clusters; c++)
+            clusterStarts[c + 1] += clusterStarts[c];
+
+        int[] next = Arrays.copyOf(clusterStarts, clusters);
+        clusterNodes = new int[nodeCount];
+        for (int n = 0; n < nodeCount; n++)
+            clusterNodes[next[getCluster(nodeCells[n])]++] = n;
+    }
+
+    /**
+     * Joins every pair of nodes that can reach each other without leaving their cluster
+     */
+    private void buildIntraEdges() {
+        for (int c = 0; c < clusterRows * clusterCols; c++) {
+            // moves cost the same both ways, so each pair only needs one search
+            for (int i = clusterStarts[c]; i < clusterStarts[c + 1] - 1; i++) {
+                int from = clusterNodes[i];
+                searchCluster(nodeCells[from], -1);
+
+                for (int j = i + 1; j < clusterStarts[c + 1]; j++) {
+                    int to = clusterNodes[j];
+                    double cost = local.getGCost(localId(nodeCells[to]));
+
+                    if (cost < Double.POSITIVE_INFINITY) {
+                        addEdge(from, to, cost);
+                        addEdge(to, from, cost);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sorts the edges into {@link #edgeStarts} order by source node
+     */
+    private void groupEdges() {
+        edgeStarts = new int[nodeCount + 1];
+        for (int e = 0; e < edgeCount; e++)
+            edgeStarts[edgeSources[e] + 1]++;
+
+        for (int n = 0; n < nodeCount; n++)
+            edgeStarts[n + 1] += edgeStarts[n];
+
+        int[] next = Arrays.copyOf(edgeStarts, nodeCount);
+        int[] targets = new int[edgeCount];
+        double[] costs = new double[edgeCount];
+
+        for (int e = 0; e < edgeCount; e++) {
+            int slot = next[edgeSources[e]]++;
+            targets[slot] = edgeTargets[e];
+            costs[slot] = edgeCosts[e];
+        }
+
+        edgeTargets = targets;
+        edgeCosts = costs;
+        edgeSources = null;
+        nodeCells = Arrays.copyOf(nodeCells, nodeCount);
+    }
+
+    /**
+     * Runs a Dijkstra, or an A* if there is a target, from a cell without leaving its cluster. The g-costs and parents
+     * are left in {@link #local}, indexed by {@link #localId(int)}
+     *
+     * @param source id of the cell to search from
+     * @param target id of a cell in the same cluster to stop at, <code>-1</code> to reach every cell of the cluster
+     */
+    private void searchCluster(int source, int target) {
+        int cluster = getCluster(source);
+
+        localTop = (cluster / clusterCols) * clusterSize;
+        localLeft = (cluster % clusterCols) * clusterSize;
+        localBottom = Math.min(localTop + clusterSize, map.getRows());
+        localRight = Math.min(localLeft + clusterSize, map.getCols());
+
+        local.reset();
+        IndexedMinHeap open = local.getOpen();
+
+        local.setGCost(localId(source), 0);
+        open.offer(localId(source), localHeuristic(source, target));
+
+        while (!open.isEmpty()) {
+            int min = open.poll();
+            int cell = globalId(min);
+
+            if (cell == target)
+                return;
+
+            local.getClosed().add(min);
+
+            int count = map.neighbors(cell, localBuffer);
+            for (int i = 0; i < count; i++) {
+                int n = localBuffer[i];
+                int row = map.getRow(n);
+                int col = map.getCol(n);
+
+                if (row < localTop || row >= localBottom || col < localLeft || col >= localRight)
+                    continue;
+
+                int ln = localId(n);
+                if (local.getClosed().contains(ln))
+                    continue;
+
+                double g = local.getGCost(min) + map.moveCost(cell, n);
+                if (local.getGCost(ln) <= g)
+                    continue;
+
+                local.reach(ln, min, g);
+                open.offer(ln, g + localHeuristic(n, target));
+            }
+        }
+    }
+
+    private double localHeuristic(int cell, int target) {
+        if (target < 0)
+            return 0;
+
+        int dx = Math.abs(map.getRow(cell) - map.getRow(target));
+        int dy = Math.abs(map.getCol(cell) - map.getCol(target));
+
+        if (connectivity == CompactGrid.Connectivity.FOUR)
+            return dx + dy;
+
+        return (dx + dy) + (CompactGrid.DIAGONAL_COST - 2) * Math.min(dx, dy);
+    }
+
+    private int localId(int cell) {
+        return (map.getRow(cell) - localTop) * clusterSize + (map.getCol(cell) - localLeft);
+    }
+
+    private int globalId(int localId) {
+        return map.getId(localTop + localId / clusterSize, localLeft + localId % clusterSize);
+    }
+
+    /**
+     * Works out the cost of reaching every node of a cell's cluster from the cell without leaving the cluster. The
+     * moves are the same both ways, so these are also the costs of reaching the cell from the nodes
+     *
+     * @param cell id of the cell
+     * @param nodes array of at least {@link #getMaxClusterNodes()} elements to write the reachable nodes into
+     * @param costs array of at least {@link #getMaxClusterNodes()} elements to write their costs into
+     * @return number of nodes written
+     */
+    public int connect(int cell, int[] nodes, double[] costs) {
+        searchCluster(cell, -1);
+
+        int cluster = getCluster(cell);
+        int count = 0;
+
+        for (int i = clusterStarts[cluster]; i < clusterStarts[cluster + 1]; i++) {
+            int node = clusterNodes[i];
+            double cost = local.getGCost(localId(nodeCells[node]));
+
+            if (cost < Double.POSITIVE_INFINITY) {
+                nodes[count] = node;
+                costs[count] = cost;
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Finds a shortest path between two cells of the same cluster that doesn't leave the cluster
+     *
+     * @param from id of the first cell
+     * @param to id of the last cell
+     * @param out array of at least <code>clusterSize * clusterSize</code> elements to write the path into
+     * @return number of cells written, from <code>from</code> to <code>to</code>, or <code>0</code> if there is no path
+     */
+    public int findLocalPath(int from, int to, int[] out) {
+        if (getCluster(from) != getCluster(to))
+            throw new IllegalArgumentException("Cells " + from + " and " + to + " are in different clusters");
+
+        searchCluster(from, to);
+
+        int target = localId(to);
+        if (local.getGCost(target) == Double.POSITIVE_INFINITY)
+            return 0;
+
+        int length = 0;
+        for (int curr = target; curr >= 0; curr = local.getParent(curr))
+            length++;
+
+        int i = length;
+        for (int curr = target; curr >= 0; curr = local.getParent(curr))
+            out[--i] = globalId(curr);
+
+        return length;
+    }
+
+    /**
+     * @param from id of the first cell
+     * @param to id of a cell in the same cluster
+     * @return cost of the shortest path between the cells that doesn't leave the cluster, infinite if there is none
+     */
+    public double getLocalCost(int from, int to) {
+        searchCluster(from, to);
+        return local.getGCost(localId(to));
+    }
+
+    /**
+     * @param cell id of a cell
+     * @return index of the cluster the cell is in
+     */
+    public int getCluster(int cell) {
+        return (map.getRow(cell) / clusterSize) * clusterCols + map.getCol(cell) / clusterSize;
+    }
+
+    /**
+     * @param cell id of a cell
+     * @return node of the cell, <code>-1</code> if it isn't one
+     */
+    public int getNode(int cell) {
+        return cellNodes[cell];
+    }
+
+    public int getNodeCell(int node) {
+        return nodeCells[node];
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * @return index of the first edge of a node. Its edges run up to {@link #getEdgeEnd(int)}
+     */
+    public int getEdgeStart(int node) {
+        return edgeStarts[node];
+    }
+
+    public int getEdgeEnd(int node) {
+        return edgeStarts[node + 1];
+    }
+
+    public int getEdgeTarget(int edge) {
+        return edgeTargets[edge];
+    }
+
+    public double getEdgeCost(int edge) {
+        return edgeCosts[edge];
+    }
+
+    public int getEdgeCount() {
+        return edgeTargets.length;
+    }
+
+    /**
+     * @return largest number of nodes in any one cluster
+     */
+    public int getMaxClusterNodes() {
+        int max = 0;
+        for (int c = 0; c < clusterRows * clusterCols; c++)
+            max = Math.max(max, clusterStarts[c + 1] - clusterStarts[c]);
+
+        return max;
+    }
+
+    public int getClusterSize() {
+        return clusterSize;
+    }
+
+    /**
+     * @return {@link CompactGrid#getVersion()} of the map when the graph was built
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return whether or not the map is still the way it was when the graph was built
+     */
+    public boolean isCurrent() {
+        return map.getVersion() == version;
+    }
+
+    public CompactGrid getMap() {
+        return map;
+    }
+
+    /**
+     * @return connectivity the graph was built for
+     */
+    public CompactGrid.Connectivity getConnectivity() {
+        return connectivity;
+    }
+
+    /**
+     * @return corner cutting the graph was built for
+     */
+    public CompactGrid.CornerCutting getCornerCutting() {
+        return cornerCutting;
+    }
+
+}
@@ -0,0 +1,68 @@
+package search.pathfinder.heuristic;
+
+import search.grid.Grid;
+
+/**
+ * D* Lite, an incremental search for agents that replan as they move and as the map around them changes.
+ *
+ * <p>The search runs backwards, from the goal cell towards the start cell, and is kept from one search to the next.
+ * Moving the start cell only shifts the keys made from then on instead of reordering the open list, and cells whose
+ * walkability changed are repaired as described in {@link IncrementalSearcher}. A new goal cell, map or connectivity
+ * starts over from scratch</p>
+ *
+ * @see <a href="http://idm-lab.org/bib/abstracts/papers/aaai02b.pdf">Koenig and Likhachev, D* Lite</a>
+ */
+public class DStarLiteSearcher extends IncrementalSearcher {
+
+    public DStarLiteSearcher(Grid grid, boolean showMultipleColors) {
+        super(grid, showMultipleColors);
+    }
+
+    @Override
+    protected int find() {
+        if (goal < 0)
+            return -1;
+
+        if (isPlanned(goal)) {
+            moveTarget(start);
+            repair();
+        } else {
+            initialize(goal, start);
+        }
+
+        context.setGCost(start, 0);
+        if (start == goal)
+            return goal;
+
+        computeShortestPath();
+
+        return extractPath();
+    }
+
+    /**
+     * Follows the cheapest moves from the start cell to the goal cell, writing the path into the {@link #context}
+     *
+     * @return id of the goal cell, <code>-1</code> if it can't be reached
+     */
+    private int extractPath() {
+        if (!isTargetReached())
+            return -1;
+
+        int curr = start;
+        double g = 0;
+
+        // every step lowers the cost left, so this is only a guard against bugs
+        for (int steps = 0; curr != goal && steps < map.size(); steps++) {
+            int next = nextTowardsSource(curr);
+            if (next < 0)
+                return -1;
+
+            g += map.moveCost(curr, next);
+            context.reach(next, curr, g);
+            curr = next;
+        }
+
+        return (curr == goal) ? goal : -1;
+    }
+
+}
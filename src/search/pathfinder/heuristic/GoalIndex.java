@@ -0,0 +1,163 @@
+package search.pathfinder.heuristic;
+
+import search.grid.CompactGrid;
+
+/**
+ * A <code>GoalIndex</code> works out the estimated cost from a cell to the nearest of many goal cells without looking
+ * at every goal cell.
+ *
+ * <p>The goal cells are put in square buckets sized so there is about one goal cell per bucket. A query looks at the
+ * ring of buckets around the cell's bucket, then the ring around that and so on, and stops once the next ring is too
+ * far away to hold anything nearer than the best goal cell found so far. The estimate is the same octile distance
+ * {@link HeuristicSearcher#diagonalDistance(int, int)} uses, and the smallest of a set of consistent estimates is
+ * still consistent, so searches using it stay optimal</p>
+ */
+public class GoalIndex {
+
+    /**
+     * Up to this many goal cells are just scanned
+     */
+    public static final int LINEAR_LIMIT = 8;
+
+    /**
+     * Smallest width of a bucket in cells
+     */
+    public static final int MIN_BUCKET_SIZE = 8;
+
+    private final int count;
+
+    /**
+     * Rows and columns of the goal cells, grouped by bucket
+     */
+    private final int[] goalRows;
+    private final int[] goalCols;
+
+    /**
+     * Goal cells of bucket <code>b</code> are <code>[bucketStarts[b], bucketStarts[b + 1])</code>. <code>null</code> if
+     * the goal cells are only scanned
+     */
+    private final int[] bucketStarts;
+
+    private final int bucketSize;
+    private final int bucketRows;
+    private final int bucketCols;
+
+    /**
+     * Indexes the goal cells the map has now
+     *
+     * @param map map to index the goal cells of
+     */
+    public GoalIndex(CompactGrid map) {
+        int[] goals = map.getGoals();
+        count = goals.length;
+
+        goalRows = new int[count];
+        goalCols = new int[count];
+
+        if (count <= LINEAR_LIMIT) {
+            for (int i = 0; i < count; i++) {
+                goalRows[i] = map.getRow(goals[i]);
+                goalCols[i] = map.getCol(goals[i]);
+            }
+
+            bucketStarts = null;
+            bucketSize = 0;
+            bucketRows = 0;
+            bucketCols = 0;
+            return;
+        }
+
+        bucketSize = Math.max(MIN_BUCKET_SIZE, (int) Math.sqrt((double) map.size() / count));
+        bucketRows = (map.getRows() + bucketSize - 1) / bucketSize;
+        bucketCols = (map.getCols() + bucketSize - 1) / bucketSize;
+
+        bucketStarts = new int[bucketRows * bucketCols + 1];
+        for (int goal : goals)
+            bucketStarts[bucketOf(map.getRow(goal), map.getCol(goal)) + 1]++;
+
+        for (int b = 0; b < bucketRows * bucketCols; b++)
+            bucketStarts[b + 1] += bucketStarts[b];
+
+        int[] next = new int[bucketRows * bucketCols];
+        System.arraycopy(bucketStarts, 0, next, 0, next.length);
+
+        for (int goal : goals) {
+            int row = map.getRow(goal);
+            int col = map.getCol(goal);
+            int slot = next[bucketOf(row, col)]++;
+
+            goalRows[slot] = row;
+            goalCols[slot] = col;
+        }
+    }
+
+    /**
+     * @param row row of the cell
+     * @param col column of the cell
+     * @return estimated cost of getting from the cell to the nearest goal cell, never more than the real cost.
+     * <code>0</code> if there are no goal cells
+     */
+    public double distance(int row, int col) {
+        if (count == 0)
+            return 0;
+
+        if (bucketStarts == null)
+            return nearest(0, count, row, col, Double.POSITIVE_INFINITY);
+
+        int bucketRow = row / bucketSize;
+        int bucketCol = col / bucketSize;
+
+        int rings = Math.max(Math.max(bucketRow, bucketRows - 1 - bucketRow),
+                Math.max(bucketCol, bucketCols - 1 - bucketCol));
+
+        double best = Double.POSITIVE_INFINITY;
+
+        for (int k = 0; k <= rings; k++) {
+            // no cell of ring k is closer than this, and a move costs at least one per row or column crossed
+            if (k > 0 && (k - 1) * bucketSize + 1 >= best)
+                break;
+
+            for (int r = bucketRow - k; r <= bucketRow + k; r++) {
+                if (r < 0 || r >= bucketRows)
+                    continue;
+
+                // rows inside the ring only have a bucket at each end
+                int step = (r == bucketRow - k || r == bucketRow + k) ? 1 : 2 * k;
+
+                for (int c = bucketCol - k; c <= bucketCol + k; c += step) {
+                    if (c < 0 || c >= bucketCols)
+                        continue;
+
+                    int b = r * bucketCols + c;
+                    best = nearest(bucketStarts[b], bucketStarts[b + 1], row, col, best);
+                }
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * @return the smaller of <code>best</code> and the estimated cost to the nearest goal cell in
+     * <code>[from, to)</code>
+     */
+    private double nearest(int from, int to, int row, int col, double best) {
+        for (int i = from; i < to; i++) {
+            int dx = Math.abs(goalRows[i] - row);
+            int dy = Math.abs(goalCols[i] - col);
+
+            best = Math.min(best, (dx + dy) + (Math.sqrt(2) - 2) * Math.min(dx, dy));
+        }
+
+        return best;
+    }
+
+    private int bucketOf(int row, int col) {
+        return (row / bucketSize) * bucketCols + col / bucketSize;
+    }
+
+    public int size() {
+        return count;
+    }
+
+}
@@ -1,118 +1,88 @@
 package search.pathfinder.heuristic;
 
-import search.grid.Cell;
 import search.grid.Grid;
-
-import java.awt.*;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.Stack;
+import search.util.IntStack;
+import search.util.VisitedSet;
 
 public class HeuristicDepthFirstSearcher extends HeuristicSearcher {
 
-    private Stack<Cell> open;
-    private ArrayList<Cell> closed;
+    private IntStack open;
 
     public HeuristicDepthFirstSearcher(Grid grid, boolean showMultipleColors) {
         super(grid, showMultipleColors);
 
-        open = new Stack<>();
-        closed = new ArrayList<>();
+        open = new IntStack();
     }
 
     @Override
-    public Cell search() {
-        Color first = new Color(245, 11, 255);
-        Color second = new Color(80, 242, 255);
-        Color third = new Color(255, 144, 4);
-        Color fourth = new Color(255, 61, 146);
-        Color fifth = new Color(159, 2, 255);
-        Color[] seenColors = {first, second, third, fourth, fifth};
-
-        calculateHeuristics();
-        open.add(grid.getStartCell());
-
-        while (!open.isEmpty()) {
-            try {
-                Thread.sleep(SEARCHER_DELAY);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+    protected boolean findsNearestGoal() {
+        return true;
+    }
 
-            Cell c = open.pop();
+    @Override
+    protected int find() {
+        VisitedSet closed = context.getClosed();
 
-            if (c != null) {
-                c.setAlongPath(true);
+        open.clear();
+        open.push(start);
+        context.setGCost(start, 0);
 
-                if (c.isGoal())
-                    return c;
+        while (!open.isEmpty()) {
+            pause();
 
-                // cycle pruning
-                if (closed.indexOf(c) >= 0) {
-                    if (showMultipleColors) {
-                        if (!c.isStart() && !c.isGoal()) {
-                            if (c.getColor().equals(seenColors[c.getReachedCount()]))
-                                c.setReachedCount(c.getReachedCount() + 1);
+            int c = open.pop();
 
-                            c.setColor(seenColors[c.getReachedCount()]);
-                        }
-                    }
+            if (map.isGoal(c))
+                return c;
 
-                    continue;
-                }
+            // cycle pruning
+            if (closed.contains(c)) {
+                markRevisited(c);
+                continue;
+            }
 
-                closed.add(c);
+            closed.add(c);
+            expanded++;
+            markClosed(c);
 
-                if (!c.isStart() && !c.isGoal())
-                    c.setColor(new Color(157, 255, 26));
+            int count = neighbors(c, neighborBuffer);
+            sortByHeuristic(neighborBuffer, count);
 
-                ArrayList<Cell> neighbors = c.getNeighbors();
-                neighbors.sort(new HDFSComparator());
+            for (int i = 0; i < count; i++) {
+                int n = neighborBuffer[i];
 
-                for (Cell n : neighbors) {
-                    if (closed.indexOf(n) < 0) {
-                        if (!n.isAlongPath() && (!n.isStart() && !n.isGoal()))
-                            n.setColor(Color.YELLOW);
+                if (!closed.contains(n)) {
+                    markOpen(n);
 
-                        open.add(n);
-                        n.setParent(c);
-                        n.setAlongPath(true);
-                    }
+                    open.push(n);
+                    context.reach(n, c, context.getGCost(c) + map.moveCost(c, n));
                 }
             }
         }
 
-        return null;
+        return -1;
     }
 
-    @Override
-    protected void calculateHeuristics() {
-        for (int i = 0; i < grid.getRows(); i++) {
-            for (int j = 0; j < grid.getCols(); j++) {
-                Cell c = grid.getCell(i, j);
-
-                double h = diagonalDistance(i, j);
-                c.setHCost(h);
+    /**
+     * Sorts neighbors from highest to lowest h-cost, so the neighbor closest to the goal is pushed last and
+     * popped first
+     *
+     * @param ids neighbor ids
+     * @param count number of neighbors
+     */
+    private void sortByHeuristic(int[] ids, int count) {
+        for (int i = 1; i < count; i++) {
+            int id = ids[i];
+            double h = heuristic(id);
+
+            int j = i - 1;
+            while (j >= 0 && heuristic(ids[j]) < h) {
+                ids[j + 1] = ids[j];
+                j--;
             }
-        }
-    }
 
-    @Override
-    protected Cell lowestFCost() {
-        // don't need an implementation because there's no need for the f cost
-
-        return null;
-    }
-
-    private static class HDFSComparator implements Comparator<Cell> {
-
-        @Override
-        public int compare(Cell o1, Cell o2) {
-            return (int) (o1.getHCost() - o2.getHCost());
+            ids[j + 1] = id;
         }
-
     }
 
 }
-
-
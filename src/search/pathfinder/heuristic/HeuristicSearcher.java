@@ -1,6 +1,6 @@
 package search.pathfinder.heuristic;
 
-import search.grid.Cell;
+import search.grid.CompactGrid;
 import search.grid.Grid;
 import search.pathfinder.Searcher;
 
@@ -9,16 +9,67 @@ public abstract class HeuristicSearcher extends Searcher {
     protected int goalRow;
     protected int goalCol;
 
+    /**
+     * Goal cells to take the nearest of, <code>null</code> if the map has at most one goal cell
+     */
+    protected GoalIndex goalIndex;
+
+    /**
+     * Last index built and the map and {@link CompactGrid#getVersion()} it was built for, kept so repeated searches on
+     * the same goal cells share one
+     */
+    private GoalIndex builtIndex;
+    private CompactGrid indexedMap;
+    private long indexedVersion;
+
     public HeuristicSearcher(Grid grid, boolean showMultipleColors) {
         super(grid, showMultipleColors);
     }
 
+    @Override
+    protected void prepare() {
+        goalRow = map.getRow(goal);
+        goalCol = map.getCol(goal);
+
+        goalIndex = (findsNearestGoal() && map.getGoalCount() > 1) ? indexGoals() : null;
+    }
+
+    /**
+     * @return an index of the goal cells the map has now, built only if the last one is out of date
+     */
+    private GoalIndex indexGoals() {
+        if (builtIndex == null || indexedMap != map || indexedVersion != map.getVersion()) {
+            builtIndex = new GoalIndex(map);
+            indexedMap = map;
+            indexedVersion = map.getVersion();
+        }
+
+        return builtIndex;
+    }
+
+    /**
+     * @return whether or not the search stops at whichever goal cell it reaches first, so the heuristic has to be to
+     * the nearest one. Searchers that only ever go to the first goal cell leave this <code>false</code>
+     */
+    protected boolean findsNearestGoal() {
+        return false;
+    }
+
     /**
+     * Heuristic cost of a cell. Computed when it's needed instead of being stored for every cell up front
+     *
      * @see <a href="http://theory.stanford.edu/~amitp/GameProgramming/Heuristics.html#S7">Heuristic functions
      * pulled from here</a>
+     *
+     * @param id id of the cell
+     * @return estimated cost of getting from the cell to the goal cell, or to the nearest one if there are several
      */
-    protected abstract void calculateHeuristics();
-    protected abstract Cell lowestFCost();
+    protected double heuristic(int id) {
+        if (goalIndex != null)
+            return goalIndex.distance(map.getRow(id), map.getCol(id));
+
+        return diagonalDistance(map.getRow(id), map.getCol(id));
+    }
 
     protected double manhattanDistance(int cellRow, int cellCol) {
         int dx = Math.abs(goalRow - cellRow);
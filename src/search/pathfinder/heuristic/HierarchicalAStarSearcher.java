@@ -0,0 +1,269 @@
+package search.pathfinder.heuristic;
+
+import search.grid.Grid;
+import search.pathfinder.SearchContext;
+import search.util.IndexedMinHeap;
+import search.util.IntStack;
+import search.util.VisitedSet;
+
+/**
+ * Hierarchical path-finding A* (HPA*). The first search on a map builds a {@link ClusterGraph} for it. Every search
+ * after that joins the start and goal cells onto the nodes of their clusters, runs A* over the cluster graph and only
+ * then turns the edges of the abstract path back into cells, one cluster at a time. The work per query depends on
+ * the size of a cluster and the length of the path in clusters rather than on the number of cells in the map.
+ *
+ * <p>The paths are close to the shortest but not always the shortest, since they have to cross cluster borders at
+ * nodes. The graph is kept until a search is run on another map, or on the same map once
+ * {@link ClusterGraph#isCurrent()} says it has changed since the graph was built</p>
+ *
+ * @see ClusterGraph
+ */
+public class HierarchicalAStarSearcher extends HeuristicSearcher {
+
+    private final int clusterSize;
+
+    private ClusterGraph graph;
+
+    /**
+     * State of the search over the cluster graph. Node <code>n</code> of the graph is id <code>n</code>, the start
+     * cell is id {@link #startNode} and the goal cell is id {@link #goalNode}
+     */
+    private SearchContext abstractContext;
+    private int startNode;
+    private int goalNode;
+
+    /**
+     * Nodes the start cell is joined to and what reaching them costs
+     */
+    private int[] startNodes;
+    private double[] startCosts;
+    private int startCount;
+
+    /**
+     * Nodes the goal cell is joined to and what reaching the goal cell from them costs
+     */
+    private int[] goalNodes;
+    private double[] goalCosts;
+    private int goalCount;
+    private int goalCluster;
+
+    /**
+     * Scratch buffer for paths inside a cluster
+     */
+    private int[] localPath;
+
+    /**
+     * Cells of the path being refined, for cutting out loops where two refined edges cross
+     */
+    private final IntStack pathCells = new IntStack();
+
+    public HierarchicalAStarSearcher(Grid grid, boolean showMultipleColors) {
+        this(grid, showMultipleColors, ClusterGraph.DEFAULT_CLUSTER_SIZE);
+    }
+
+    /**
+     * @param grid grid to show progress on
+     * @param showMultipleColors whether or not to show cells that were reached again in different colors
+     * @param clusterSize width and height of a cluster in cells
+     */
+    public HierarchicalAStarSearcher(Grid grid, boolean showMultipleColors, int clusterSize) {
+        super(grid, showMultipleColors);
+        this.clusterSize = clusterSize;
+    }
+
+    /**
+     * Throws away the cluster graph, so the next search builds a new one
+     */
+    public void invalidate() {
+        graph = null;
+    }
+
+    @Override
+    protected void prepare() {
+        super.prepare();
+
+        // the version also moves when the connectivity or corner cutting does
+        if (graph == null || graph.getMap() != map || !graph.isCurrent()) {
+            graph = new ClusterGraph(map, clusterSize);
+
+            int nodes = graph.getNodeCount();
+            abstractContext = new SearchContext(nodes + 2);
+            startNode = nodes;
+            goalNode = nodes + 1;
+
+            int maxNodes = graph.getMaxClusterNodes();
+            startNodes = new int[maxNodes];
+            startCosts = new double[maxNodes];
+            goalNodes = new int[maxNodes];
+            goalCosts = new double[maxNodes];
+
+            localPath = new int[clusterSize * clusterSize];
+        }
+
+        abstractContext.reset();
+    }
+
+    @Override
+    protected int find() {
+        if (goal < 0)
+            return -1;
+
+        context.setGCost(start, 0);
+        if (start == goal)
+            return goal;
+
+        startCount = graph.connect(start, startNodes, startCosts);
+        goalCount = graph.connect(goal, goalNodes, goalCosts);
+        goalCluster = graph.getCluster(goal);
+
+        IndexedMinHeap open = abstractContext.getOpen();
+        VisitedSet closed = abstractContext.getClosed();
+
+        abstractContext.setGCost(startNode, 0);
+        open.offer(startNode, heuristic(start), heuristic(start));
+
+        while (!open.isEmpty()) {
+            int min = open.poll();
+
+            if (min == goalNode)
+                return refine();
+
+            closed.add(min);
+            expanded++;
+            markClosed(cellOf(min));
+
+            if (min == startNode) {
+                for (int i = 0; i < startCount; i++)
+                    relax(min, startNodes[i], startCosts[i]);
+
+                // the shortest path may never leave the cluster
+                if (graph.getCluster(start) == goalCluster)
+                    relax(min, goalNode, graph.getLocalCost(start, goal));
+
+                continue;
+            }
+
+            for (int e = graph.getEdgeStart(min); e < graph.getEdgeEnd(min); e++)
+                relax(min, graph.getEdgeTarget(e), graph.getEdgeCost(e));
+
+            if (graph.getCluster(cellOf(min)) == goalCluster) {
+                for (int i = 0; i < goalCount; i++) {
+                    if (goalNodes[i] == min)
+                        relax(min, goalNode, goalCosts[i]);
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Reaches a node of the cluster graph from another one if that's shorter than the best known way
+     *
+     * @param from node being expanded
+     * @param to node at the end of the edge
+     * @param cost cost of the edge
+     */
+    private void relax(int from, int to, double cost) {
+        pause();
+
+        if (abstractContext.getClosed().contains(to) || cost == Double.POSITIVE_INFINITY)
+            return;
+
+        double g = abstractContext.getGCost(from) + cost;
+
+        // already queued with a path that is at least as short
+        if (abstractContext.getGCost(to) <= g)
+            return;
+
+        markOpen(cellOf(to));
+
+        abstractContext.reach(to, from, g);
+
+        double h = heuristic(cellOf(to));
+        abstractContext.getOpen().offer(to, g + h, h);
+    }
+
+    /**
+     * Turns the path found over the cluster graph into cells, writing their parents and g-costs into the
+     * {@link #context}
+     *
+     * @return id of the goal cell
+     */
+    private int refine() {
+        int length = 0;
+        for (int curr = goalNode; curr >= 0; curr = abstractContext.getParent(curr))
+            length++;
+
+        int[] nodes = new int[length];
+        for (int curr = goalNode; curr >= 0; curr = abstractContext.getParent(curr))
+            nodes[--length] = curr;
+
+        VisitedSet onPath = context.getClosed();
+        pathCells.clear();
+        pathCells.push(start);
+        onPath.add(start);
+
+        for (int i = 1; i < nodes.length; i++) {
+            int from = cellOf(nodes[i - 1]);
+            int to = cellOf(nodes[i]);
+
+            if (from == to)
+                continue;
+
+            // edges between clusters are single moves
+            if (graph.getCluster(from) != graph.getCluster(to)) {
+                append(from, to);
+                continue;
+            }
+
+            int count = graph.findLocalPath(from, to, localPath);
+            for (int j = 1; j < count; j++)
+                append(localPath[j - 1], localPath[j]);
+        }
+
+        return goal;
+    }
+
+    /**
+     * Adds a cell to the end of the refined path. If the path already went through the cell, the loop since then is
+     * dropped and the path carries on from the cell's first visit
+     *
+     * @param prev id of the cell the path comes from
+     * @param id id of the cell
+     */
+    private void append(int prev, int id) {
+        VisitedSet onPath = context.getClosed();
+
+        if (onPath.contains(id)) {
+            int last;
+            while ((last = pathCells.pop()) != id)
+                onPath.remove(last);
+
+            pathCells.push(id);
+            return;
+        }
+
+        context.reach(id, prev, context.getGCost(prev) + map.moveCost(prev, id));
+        pathCells.push(id);
+        onPath.add(id);
+    }
+
+    private int cellOf(int node) {
+        if (node == startNode)
+            return start;
+
+        if (node == goalNode)
+            return goal;
+
+        return graph.getNodeCell(node);
+    }
+
+    /**
+     * @return the cluster graph of the map, <code>null</code> until the first search
+     */
+    public ClusterGraph getGraph() {
+        return graph;
+    }
+
+}
@@ -0,0 +1,352 @@
+package search.pathfinder.heuristic;
+
+import search.grid.CellChangeListener;
+import search.grid.CompactGrid;
+import search.grid.Grid;
+import search.util.IndexedMinHeap;
+import search.util.IntStack;
+
+import java.util.Arrays;
+
+/**
+ * Base of the searchers that keep their work from one search to the next and repair it when cells change, instead of
+ * starting over.
+ *
+ * <p>The search grows a tree from a {@link #source} cell towards a {@link #target} cell. Every cell has a g-cost and
+ * an rhs, the cost of its best path through one of its neighbors one step ahead of the g-cost. A cell is consistent
+ * when the two are equal, and only inconsistent cells are in the open list. When cells change, only the cells around
+ * them get a new rhs, and the repair spreads only as far as the costs actually change. Moves cost the same both ways,
+ * so the same tree works whichever way the path is followed</p>
+ *
+ * <p>Keys are pairs compared in order, <code>(min(g, rhs) + h + km, min(g, rhs))</code>. The second one goes in the
+ * tie-breaking key of the open list. <code>km</code> is {@link #keyModifier}, which lets the target move without
+ * reordering the open list</p>
+ *
+ * <p>Changed cells are reported through {@link #cellChanged(int)}, usually by registering the searcher with
+ * {@link CompactGrid#addCellChangeListener(CellChangeListener)}</p>
+ *
+ * @see <a href="http://idm-lab.org/bib/abstracts/papers/aaai02b.pdf">Koenig and Likhachev, D* Lite</a>
+ */
+public abstract class IncrementalSearcher extends HeuristicSearcher implements CellChangeListener {
+
+    /**
+     * Slack when comparing a key with the target cell's. Keys add up diagonal costs in different orders, and a
+     * rounding error in the wrong direction would stop the search before the target cell's path is the shortest
+     */
+    private static final double EPSILON = 1e-9;
+
+    /**
+     * Cell the search tree grows from
+     */
+    protected int source = -1;
+
+    /**
+     * Cell the search tree grows towards
+     */
+    protected int target = -1;
+
+    /**
+     * Cost of the best known path from the source cell to each cell
+     */
+    private double[] gCosts;
+
+    /**
+     * Cost of the best path to each cell through one of its neighbors, one step ahead of {@link #gCosts}
+     */
+    private double[] rhs;
+
+    private IndexedMinHeap open;
+
+    /**
+     * Sum of the estimated distances the target cell has moved since the search began. Added to every new key so the
+     * old ones stay valid lower bounds
+     */
+    private double keyModifier;
+
+    /**
+     * Map, connectivity and corner cutting the kept costs are for
+     */
+    private CompactGrid plannedMap;
+    private CompactGrid.Connectivity plannedConnectivity;
+    private CompactGrid.CornerCutting plannedCornerCutting;
+
+    /**
+     * {@link CompactGrid#getVersion() Version} of the map the kept costs were last brought up to date with
+     */
+    private long plannedVersion;
+
+    /**
+     * Cells reported as changed since the last search
+     */
+    private final IntStack changed = new IntStack();
+
+    /**
+     * Scratch buffer for the neighbors of the cells whose rhs is recomputed
+     */
+    private final int[] rhsBuffer = new int[CompactGrid.MAX_NEIGHBORS];
+
+    public IncrementalSearcher(Grid grid, boolean showMultipleColors) {
+        super(grid, showMultipleColors);
+    }
+
+    /**
+     * Tells the searcher that a cell was made walkable or unwalkable, or its cost changed, since the last search
+     *
+     * @param id id of the cell
+     */
+    @Override
+    public void cellChanged(int id) {
+        // nothing is kept to repair
+        if (plannedMap == null)
+            return;
+
+        // repairing more cells than the map has is slower than starting over, and the stack would keep growing for
+        // as long as the map is edited without searching
+        if (changed.size() >= plannedMap.size()) {
+            invalidate();
+            return;
+        }
+
+        changed.push(id);
+    }
+
+    /**
+     * Throws away everything kept from earlier searches, so the next search starts over
+     */
+    public void invalidate() {
+        plannedMap = null;
+        changed.clear();
+    }
+
+    /**
+     * @param source cell the next search would grow from
+     * @return whether or not the kept search can be repaired instead of starting a new one. It can't if the map
+     * changed without any changed cells being reported, since then there's no telling which cells to repair
+     */
+    protected boolean isPlanned(int source) {
+        return plannedMap == map && plannedConnectivity == map.getConnectivity()
+                && plannedCornerCutting == map.getCornerCutting() && this.source == source
+                && gCosts.length == map.size() && (plannedVersion == map.getVersion() || !changed.isEmpty());
+    }
+
+    /**
+     * Starts a new search, dropping everything kept from earlier ones
+     *
+     * @param source cell to grow the search tree from
+     * @param target cell to grow it towards
+     */
+    protected void initialize(int source, int target) {
+        int size = map.size();
+
+        if (gCosts == null || gCosts.length != size) {
+            gCosts = new double[size];
+            rhs = new double[size];
+            open = new IndexedMinHeap(size);
+        } else {
+            open.clear();
+        }
+
+        Arrays.fill(gCosts, Double.POSITIVE_INFINITY);
+        Arrays.fill(rhs, Double.POSITIVE_INFINITY);
+
+        plannedMap = map;
+        plannedConnectivity = map.getConnectivity();
+        plannedCornerCutting = map.getCornerCutting();
+        plannedVersion = map.getVersion();
+
+        this.source = source;
+        this.target = target;
+        keyModifier = 0;
+        changed.clear();
+
+        rhs[source] = 0;
+        insert(source);
+    }
+
+    /**
+     * Moves the target cell of the kept search. Only the keys made from now on change
+     *
+     * @param target new target cell
+     */
+    protected void moveTarget(int target) {
+        keyModifier += distance(this.target, target);
+        this.target = target;
+    }
+
+    /**
+     * Recomputes the cells around every reported change. A change can add or remove the diagonal moves between the
+     * cells around it, and a new cost changes every move into or out of the cell, so all of them are recomputed, not
+     * just the cell
+     */
+    protected void repair() {
+        int rows = map.getRows();
+        int cols = map.getCols();
+
+        while (!changed.isEmpty()) {
+            int id = changed.pop();
+            int row = map.getRow(id);
+            int col = map.getCol(id);
+
+            for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+                for (int c = Math.max(0, col - 1); c <= Math.min(cols - 1, col + 1); c++) {
+                    int n = map.getId(r, c);
+
+                    rhs[n] = lookahead(n);
+                    update(n);
+                }
+            }
+        }
+
+        plannedVersion = map.getVersion();
+    }
+
+    /**
+     * Expands cells until the target cell is consistent and nothing left in the open list can improve its path
+     */
+    protected void computeShortestPath() {
+        while (!open.isEmpty()) {
+            int u = open.peek();
+
+            double k1 = open.peekKey();
+            double k2 = open.getTie(u);
+
+            double targetK2 = Math.min(gCosts[target], rhs[target]);
+            double targetK1 = targetK2 + keyModifier;
+
+            if (k1 >= targetK1 + EPSILON && rhs[target] <= gCosts[target])
+                break;
+
+            double newK2 = Math.min(gCosts[u], rhs[u]);
+            double newK1 = newK2 + distance(target, u) + keyModifier;
+
+            // the key was made before the target cell last moved
+            if (k1 < newK1 || (k1 == newK1 && k2 < newK2)) {
+                open.offer(u, newK1, newK2);
+                continue;
+            }
+
+            open.poll();
+            expanded++;
+            markClosed(u);
+
+            int count = neighbors(u, neighborBuffer);
+
+            if (gCosts[u] > rhs[u]) {
+                gCosts[u] = rhs[u];
+
+                for (int i = 0; i < count; i++) {
+                    pause();
+
+                    int s = neighborBuffer[i];
+                    if (s == source)
+                        continue;
+
+                    double through = map.moveCost(s, u) + gCosts[u];
+                    if (through < rhs[s]) {
+                        rhs[s] = through;
+                        update(s);
+                    }
+                }
+            } else {
+                double old = gCosts[u];
+                gCosts[u] = Double.POSITIVE_INFINITY;
+
+                if (u != source) {
+                    rhs[u] = lookahead(u);
+                    update(u);
+                }
+
+                for (int i = 0; i < count; i++) {
+                    pause();
+
+                    int s = neighborBuffer[i];
+
+                    // only cells whose best move was through u lost anything
+                    if (s != source && rhs[s] == map.moveCost(s, u) + old) {
+                        rhs[s] = lookahead(s);
+                        update(s);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return whether or not the last {@link #computeShortestPath()} found a path between the source and target cells
+     */
+    protected boolean isTargetReached() {
+        return rhs[target] < Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @param id id of a cell on the search tree
+     * @return the neighbor one step closer to the source cell on a shortest path, <code>-1</code> if there is none
+     */
+    protected int nextTowardsSource(int id) {
+        int count = neighbors(id, rhsBuffer);
+        int next = -1;
+        double best = Double.POSITIVE_INFINITY;
+
+        for (int i = 0; i < count; i++) {
+            int n = rhsBuffer[i];
+            double cost = map.moveCost(id, n) + gCosts[n];
+
+            if (cost < best) {
+                best = cost;
+                next = n;
+            }
+        }
+
+        return next;
+    }
+
+    /**
+     * @param id id of the cell
+     * @return cost of the best path to the cell through one of its neighbors, using their current g-costs
+     */
+    private double lookahead(int id) {
+        if (id == source)
+            return 0;
+
+        if (!map.isWalkable(id))
+            return Double.POSITIVE_INFINITY;
+
+        double best = Double.POSITIVE_INFINITY;
+
+        int count = neighbors(id, rhsBuffer);
+        for (int i = 0; i < count; i++)
+            best = Math.min(best, map.moveCost(id, rhsBuffer[i]) + gCosts[rhsBuffer[i]]);
+
+        return best;
+    }
+
+    /**
+     * Puts a cell in the open list with a fresh key if it is inconsistent, otherwise takes it out
+     *
+     * @param id id of the cell
+     */
+    private void update(int id) {
+        if (gCosts[id] != rhs[id])
+            insert(id);
+        else
+            open.remove(id);
+    }
+
+    private void insert(int id) {
+        double k2 = Math.min(gCosts[id], rhs[id]);
+
+        markOpen(id);
+        open.offer(id, k2 + distance(target, id) + keyModifier, k2);
+    }
+
+    /**
+     * @return estimated cost of moving between two cells, never more than the real cost
+     */
+    protected double distance(int a, int b) {
+        int dx = Math.abs(map.getRow(a) - map.getRow(b));
+        int dy = Math.abs(map.getCol(a) - map.getCol(b));
+
+        return (dx + dy) + (Math.sqrt(2) - 2) * Math.min(dx, dy);
+    }
+
+}
@@ -0,0 +1,324 @@
+package search.pathfinder.heuristic;
+
+import search.grid.Cell;
+import search.grid.CompactGrid;
+import search.grid.Grid;
+import search.util.IndexedMinHeap;
+import search.util.VisitedSet;
+
+/**
+ * Jump Point Search. An A* that only puts jump points on the open list: cells where an optimal path may have to turn
+ * because of a wall. Everything in between is skipped over by scanning in a straight or diagonal line, so on open
+ * areas it expands a handful of cells where A* expands thousands. Skipping cells is only safe when every cell costs
+ * the same and diagonal moves never cut corners, so on maps with terrain costs or with a looser
+ * {@link CompactGrid.CornerCutting} it doesn't jump and expands every neighbor like a plain A*.
+ *
+ * <p>Jumps for both {@link CompactGrid.Connectivity connectivities}: with eight neighbors a diagonal step needs both
+ * orthogonal cells beside it to be walkable, with four neighbors vertical jumps also look for horizontal jump points.
+ * The scans are loops rather than recursion so long open corridors can't overflow the stack</p>
+ *
+ * <p>When the goal is found the cells between jump points are filled in, so the path has every cell on it just like
+ * the other searchers</p>
+ *
+ * @see <a href="https://users.cecs.anu.edu.au/~dharabor/data/papers/harabor-grastien-aaai11.pdf">Online Graph Pruning
+ * for Pathfinding on Grid Maps</a>
+ */
+public class JumpPointSearcher extends HeuristicSearcher {
+
+    /**
+     * Whether or not every cell of the map costs the same and diagonal moves never cut corners, so cells can be jumped
+     * over
+     */
+    private boolean jumps;
+
+    public JumpPointSearcher(Grid grid, boolean showMultipleColors) {
+        super(grid, showMultipleColors);
+    }
+
+    @Override
+    protected void prepare() {
+        super.prepare();
+
+        jumps = map.hasUniformCosts() && (map.getConnectivity() == CompactGrid.Connectivity.FOUR
+                || map.getCornerCutting() == CompactGrid.CornerCutting.NEVER);
+    }
+
+    @Override
+    protected boolean findsNearestGoal() {
+        return true;
+    }
+
+    @Override
+    protected int find() {
+        IndexedMinHeap open = context.getOpen();
+        VisitedSet closed = context.getClosed();
+
+        context.setGCost(start, 0);
+        open.offer(start, heuristic(start), heuristic(start));
+
+        while (!open.isEmpty()) {
+            int min = open.poll();
+
+            if (map.isGoal(min)) {
+                fillPath(min);
+                return min;
+            }
+
+            closed.add(min);
+            expanded++;
+            markClosed(min);
+
+            int row = map.getRow(min);
+            int col = map.getCol(min);
+
+            int count = prunedNeighbors(min, neighborBuffer);
+            for (int i = 0; i < count; i++) {
+                pause();
+
+                int n = neighborBuffer[i];
+                int jumpPoint = n;
+                if (jumps)
+                    jumpPoint = jump(map.getRow(n), map.getCol(n), map.getRow(n) - row, map.getCol(n) - col);
+
+                if (jumpPoint < 0)
+                    continue;
+
+                if (closed.contains(jumpPoint)) {
+                    markRevisited(jumpPoint);
+                    continue;
+                }
+
+                double step = jumps ? distance(min, jumpPoint) : map.moveCost(min, jumpPoint);
+                double g = context.getGCost(min) + step;
+
+                // already queued with a path that is at least as short
+                if (context.getGCost(jumpPoint) <= g)
+                    continue;
+
+                markOpen(jumpPoint);
+
+                context.reach(jumpPoint, min, g);
+
+                double h = heuristic(jumpPoint);
+                open.offer(jumpPoint, g + h, h);
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Writes the cells worth jumping towards from a cell into <code>out</code>: every neighbor for the start cell or
+     * when not jumping, otherwise only the natural and forced neighbors in the direction the cell was reached from
+     *
+     * @param id id of the cell
+     * @param out array of at least {@link CompactGrid#MAX_NEIGHBORS} elements to write the neighbor ids into
+     * @return number of neighbors written
+     */
+    private int prunedNeighbors(int id, int[] out) {
+        int parent = context.getParent(id);
+        if (parent < 0 || !jumps)
+            return neighbors(id, out);
+
+        int row = map.getRow(id);
+        int col = map.getCol(id);
+
+        int dRow = Integer.signum(row - map.getRow(parent));
+        int dCol = Integer.signum(col - map.getCol(parent));
+
+        int count = 0;
+
+        if (map.getConnectivity() == CompactGrid.Connectivity.FOUR) {
+            if (dCol != 0) {
+                count = add(row, col + dCol, out, count);
+                count = add(row - 1, col, out, count);
+                count = add(row + 1, col, out, count);
+            } else {
+                count = add(row + dRow, col, out, count);
+                count = add(row, col - 1, out, count);
+                count = add(row, col + 1, out, count);
+            }
+
+            return count;
+        }
+
+        if (dRow != 0 && dCol != 0) {
+            boolean vertical = map.isWalkable(row + dRow, col);
+            boolean horizontal = map.isWalkable(row, col + dCol);
+
+            count = add(row + dRow, col, out, count);
+            count = add(row, col + dCol, out, count);
+
+            if (vertical && horizontal)
+                count = add(row + dRow, col + dCol, out, count);
+        } else if (dCol != 0) {
+            boolean next = map.isWalkable(row, col + dCol);
+            boolean top = map.isWalkable(row - 1, col);
+            boolean bot = map.isWalkable(row + 1, col);
+
+            if (next) {
+                count = add(row, col + dCol, out, count);
+
+                if (top)
+                    count = add(row - 1, col + dCol, out, count);
+
+                if (bot)
+                    count = add(row + 1, col + dCol, out, count);
+            }
+
+            if (top)
+                out[count++] = map.getId(row - 1, col);
+
+            if (bot)
+                out[count++] = map.getId(row + 1, col);
+        } else {
+            boolean next = map.isWalkable(row + dRow, col);
+            boolean left = map.isWalkable(row, col - 1);
+            boolean right = map.isWalkable(row, col + 1);
+
+            if (next) {
+                count = add(row + dRow, col, out, count);
+
+                if (left)
+                    count = add(row + dRow, col - 1, out, count);
+
+                if (right)
+                    count = add(row + dRow, col + 1, out, count);
+            }
+
+            if (left)
+                out[count++] = map.getId(row, col - 1);
+
+            if (right)
+                out[count++] = map.getId(row, col + 1);
+        }
+
+        return count;
+    }
+
+    /**
+     * Adds a cell to <code>out</code> if it is inside the grid and walkable
+     *
+     * @return new number of cells in <code>out</code>
+     */
+    private int add(int row, int col, int[] out, int count) {
+        if (map.isWalkable(row, col))
+            out[count++] = map.getId(row, col);
+
+        return count;
+    }
+
+    /**
+     * Scans from a cell in a direction until it finds a jump point or runs into a wall
+     *
+     * @param row row of the cell the scan starts at
+     * @param col column of the cell the scan starts at
+     * @param dRow row direction, <code>-1</code>, <code>0</code> or <code>1</code>
+     * @param dCol column direction, <code>-1</code>, <code>0</code> or <code>1</code>
+     * @return id of the jump point, <code>-1</code> if there is none
+     */
+    private int jump(int row, int col, int dRow, int dCol) {
+        if (dRow != 0 && dCol != 0)
+            return jumpDiagonal(row, col, dRow, dCol);
+
+        return jumpStraight(row, col, dRow, dCol);
+    }
+
+    private int jumpDiagonal(int row, int col, int dRow, int dCol) {
+        while (map.isWalkable(row, col)) {
+            int id = map.getId(row, col);
+
+            if (map.isGoal(id))
+                return id;
+
+            // a diagonal cell is a jump point if either of the straight scans leaving it finds one
+            if (jumpStraight(row, col + dCol, 0, dCol) >= 0 || jumpStraight(row + dRow, col, dRow, 0) >= 0)
+                return id;
+
+            // no cutting corners
+            if (!map.isWalkable(row + dRow, col) || !map.isWalkable(row, col + dCol))
+                return -1;
+
+            row += dRow;
+            col += dCol;
+        }
+
+        return -1;
+    }
+
+    private int jumpStraight(int row, int col, int dRow, int dCol) {
+        boolean four = map.getConnectivity() == CompactGrid.Connectivity.FOUR;
+
+        while (map.isWalkable(row, col)) {
+            int id = map.getId(row, col);
+
+            if (map.isGoal(id))
+                return id;
+
+            // forced neighbors: a side cell is open but the one behind it was blocked
+            if (dCol != 0) {
+                if (map.isWalkable(row - 1, col) && !map.isWalkable(row - 1, col - dCol)
+                        || map.isWalkable(row + 1, col) && !map.isWalkable(row + 1, col - dCol))
+                    return id;
+            } else {
+                if (map.isWalkable(row, col - 1) && !map.isWalkable(row - dRow, col - 1)
+                        || map.isWalkable(row, col + 1) && !map.isWalkable(row - dRow, col + 1))
+                    return id;
+
+                // with four neighbors the turns a diagonal scan would find have to be found here
+                if (four && (jumpStraight(row, col + 1, 0, 1) >= 0 || jumpStraight(row, col - 1, 0, -1) >= 0))
+                    return id;
+            }
+
+            row += dRow;
+            col += dCol;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Cost of going in a straight or diagonal line between two cells
+     */
+    private double distance(int from, int to) {
+        int dRow = Math.abs(map.getRow(to) - map.getRow(from));
+        int dCol = Math.abs(map.getCol(to) - map.getCol(from));
+
+        int diagonal = Math.min(dRow, dCol);
+        int straight = Math.max(dRow, dCol) - diagonal;
+
+        return straight * Cell.COST_TO_CELL + diagonal * CompactGrid.DIAGONAL_COST;
+    }
+
+    /**
+     * Gives every cell between two jump points on the path a parent, so the path can be followed one cell at a time
+     *
+     * @param id id of the goal cell
+     */
+    private void fillPath(int id) {
+        for (int curr = id; context.getParent(curr) >= 0; ) {
+            int jumpParent = context.getParent(curr);
+
+            int dRow = Integer.signum(map.getRow(jumpParent) - map.getRow(curr));
+            int dCol = Integer.signum(map.getCol(jumpParent) - map.getCol(curr));
+            int step = dRow * map.getCols() + dCol;
+
+            double g = context.getGCost(curr);
+            double stepCost = (dRow != 0 && dCol != 0) ? CompactGrid.DIAGONAL_COST : Cell.COST_TO_CELL;
+
+            for (int cell = curr; cell != jumpParent; ) {
+                int next = cell + step;
+
+                g -= stepCost;
+                if (next != jumpParent)
+                    context.reach(next, -1, g);
+
+                context.setParent(cell, next);
+                cell = next;
+            }
+
+            curr = jumpParent;
+        }
+    }
+
+}
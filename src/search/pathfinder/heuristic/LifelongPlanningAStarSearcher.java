@@ -0,0 +1,85 @@
+package search.pathfinder.heuristic;
+
+import search.grid.Grid;
+import search.util.IntStack;
+
+/**
+ * Lifelong Planning A* (LPA*), an A* that keeps its search tree from one search to the next and only repairs the part
+ * of it that cells changed since then. Meant for asking for the same path over and over while the map is edited.
+ *
+ * <p>The search runs forwards from the start cell, as described in {@link IncrementalSearcher}. A new goal cell keeps
+ * the tree and only shifts the keys made from then on. A new start cell, map or connectivity starts over from
+ * scratch</p>
+ *
+ * @see <a href="http://idm-lab.org/bib/abstracts/papers/aij04.pdf">Koenig, Likhachev and Furcy, Lifelong Planning
+ * A*</a>
+ */
+public class LifelongPlanningAStarSearcher extends IncrementalSearcher {
+
+    /**
+     * Cells of the path from the goal cell back to the start cell, so they can be written out in order
+     */
+    private final IntStack pathCells = new IntStack();
+
+    public LifelongPlanningAStarSearcher(Grid grid, boolean showMultipleColors) {
+        super(grid, showMultipleColors);
+    }
+
+    @Override
+    protected int find() {
+        if (goal < 0)
+            return -1;
+
+        if (isPlanned(start)) {
+            if (target != goal)
+                moveTarget(goal);
+
+            repair();
+        } else {
+            initialize(start, goal);
+        }
+
+        context.setGCost(start, 0);
+        if (start == goal)
+            return goal;
+
+        computeShortestPath();
+
+        return extractPath();
+    }
+
+    /**
+     * Follows the cheapest moves back from the goal cell to the start cell, then writes the path into the
+     * {@link #context}
+     *
+     * @return id of the goal cell, <code>-1</code> if it can't be reached
+     */
+    private int extractPath() {
+        if (!isTargetReached())
+            return -1;
+
+        pathCells.clear();
+
+        // every step lowers the cost left, so the step limit is only a guard against bugs
+        for (int curr = goal; curr != start; curr = nextTowardsSource(curr)) {
+            if (curr < 0 || pathCells.size() >= map.size())
+                return -1;
+
+            pathCells.push(curr);
+        }
+
+        int prev = start;
+        double g = 0;
+
+        while (!pathCells.isEmpty()) {
+            int curr = pathCells.pop();
+
+            g += map.moveCost(prev, curr);
+            context.reach(curr, prev, g);
+            prev = curr;
+        }
+
+        return goal;
+    }
+
+}
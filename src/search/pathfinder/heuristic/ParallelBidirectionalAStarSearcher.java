@@ -0,0 +1,297 @@
+package search.pathfinder.heuristic;
+
+import search.grid.CompactGrid;
+import search.grid.Grid;
+import search.pathfinder.SearchContext;
+import search.util.IndexedMinHeap;
+import search.util.VisitedSet;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link BidirectionalAStarSearcher} where the forward and backward searches run at the same time on two threads.
+ * The forward search runs on the calling thread and the backward search on a daemon thread from a pool shared by every
+ * instance, whose idle threads go away on their own, so a searcher that is dropped leaves nothing running.
+ *
+ * <p>Each search keeps its open list and closed set to itself. The only things shared are:</p>
+ * <ul>
+ *     <li>an owner map, one <code>int</code> per cell with a bit for each search that has reached it. Setting a bit
+ *     atomically returns the old bits, so whichever search reaches a cell second always sees the other's bit and
+ *     records the meeting</li>
+ *     <li>the g-cost each search has published for the cells it has reached, for working out what a meeting costs</li>
+ *     <li>the smallest key of each open list and the best path found so far, for the stopping rule of the
+ *     bidirectional A*. A stale key is never bigger than the real one, so reading one late can only make a search
+ *     stop later, never too early</li>
+ * </ul>
+ *
+ * <p>Owner entries are stamped with the search they belong to, so nothing has to be cleared between searches</p>
+ */
+public class ParallelBidirectionalAStarSearcher extends BidirectionalAStarSearcher {
+
+    private static final int FORWARD = 1;
+    private static final int BACKWARD = 2;
+
+    /**
+     * Bits of the owner map that hold which searches reached a cell. The rest hold the stamp
+     */
+    private static final int OWNER_BITS = 2;
+
+    /**
+     * Runs the backward searches of every instance. A thread is made for each search running at the same time, and
+     * ends after a minute without one
+     */
+    private static final ExecutorService BACKWARD_POOL = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, ParallelBidirectionalAStarSearcher.class.getSimpleName() + " backward thread");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Which searches have reached each cell: <code>stamp << OWNER_BITS | FORWARD | BACKWARD</code>
+     */
+    private AtomicIntegerArray owners;
+    private int ownerStamp;
+
+    /**
+     * g-costs published by the forward search, as <code>Double.doubleToRawLongBits</code>
+     */
+    private AtomicLongArray forwardCosts;
+
+    /**
+     * g-costs published by the backward search
+     */
+    private AtomicLongArray backwardCosts;
+
+    private volatile double best;
+    private volatile boolean stopped;
+    private int meet;
+
+    public ParallelBidirectionalAStarSearcher(Grid grid, boolean showMultipleColors) {
+        super(grid, showMultipleColors);
+    }
+
+    @Override
+    protected void prepare() {
+        super.prepare();
+
+        int size = context.size();
+
+        if (owners == null || owners.length() != size) {
+            owners = new AtomicIntegerArray(size);
+            forwardCosts = new AtomicLongArray(size);
+            backwardCosts = new AtomicLongArray(size);
+            ownerStamp = 0;
+        }
+
+        ownerStamp++;
+
+        // stamps would be ambiguous once they don't fit next to the owner bits
+        if (ownerStamp >= 1 << (Integer.SIZE - OWNER_BITS - 1)) {
+            for (int i = 0; i < size; i++)
+                owners.set(i, 0);
+
+            ownerStamp = 1;
+        }
+
+        best = Double.POSITIVE_INFINITY;
+        stopped = false;
+        meet = -1;
+    }
+
+    @Override
+    protected int find() {
+        if (goal < 0)
+            return -1;
+
+        context.setGCost(start, 0);
+        if (start == goal)
+            return goal;
+
+        Side forward = new Side(context, FORWARD, forwardCosts, backwardCosts);
+        Side backward = new Side(this.backward, BACKWARD, backwardCosts, forwardCosts);
+        forward.other = backward;
+        backward.other = forward;
+
+        forward.begin(start, potential(start), heuristic(start));
+        backward.begin(goal, -potential(goal), startHeuristic(goal));
+
+        Future<?> backwardRun = BACKWARD_POOL.submit(backward);
+
+        try {
+            forward.run();
+        } finally {
+            stopped = true;
+
+            try {
+                backwardRun.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Backward search failed", e.getCause());
+            }
+        }
+
+        expanded = forward.expanded + backward.expanded;
+
+        return (meet < 0) ? -1 : splice(meet, this.backward);
+    }
+
+    /**
+     * Records a path through a cell if it's better than the best one so far
+     *
+     * @param total cost of the path
+     * @param id id of the cell the two searches meet at
+     */
+    private synchronized void offerMeet(double total, int id) {
+        if (total < best) {
+            best = total;
+            meet = id;
+        }
+    }
+
+    /**
+     * Marks a cell as reached by a search
+     *
+     * @param id id of the cell
+     * @param bit bit of the search
+     * @return bits of the searches that had reached the cell before
+     */
+    private int claim(int id, int bit) {
+        int stamped = ownerStamp << OWNER_BITS;
+
+        while (true) {
+            int old = owners.get(id);
+            int oldBits = (old >>> OWNER_BITS == ownerStamp) ? old & (FORWARD | BACKWARD) : 0;
+
+            if (owners.compareAndSet(id, old, stamped | oldBits | bit))
+                return oldBits;
+        }
+    }
+
+    /**
+     * One of the two searches. Everything but the owner map, the published costs and the top keys is only touched by
+     * the thread running it
+     */
+    private class Side implements Runnable {
+
+        private final SearchContext own;
+        private final IndexedMinHeap open;
+        private final VisitedSet closed;
+
+        private final int bit;
+        private final boolean isForward;
+
+        private final AtomicLongArray costs;
+        private final AtomicLongArray otherCosts;
+
+        /**
+         * Scratch buffer for neighbors. The searcher's own buffer belongs to the forward search's thread
+         */
+        private final int[] buffer = new int[CompactGrid.MAX_NEIGHBORS];
+
+        private Side other;
+
+        /**
+         * Smallest key in the open list, or of the cell being expanded
+         */
+        private volatile double top;
+
+        private int expanded;
+
+        private Side(SearchContext own, int bit, AtomicLongArray costs, AtomicLongArray otherCosts) {
+            this.own = own;
+            this.open = own.getOpen();
+            this.closed = own.getClosed();
+
+            this.bit = bit;
+            this.isForward = bit == FORWARD;
+
+            this.costs = costs;
+            this.otherCosts = otherCosts;
+        }
+
+        private void begin(int id, double key, double tie) {
+            own.setGCost(id, 0);
+            open.offer(id, key, tie);
+
+            publish(id, 0);
+            top = key;
+        }
+
+        /**
+         * Publishes the g-cost of a cell, then claims it. A search that sees the claim is guaranteed to see the cost
+         *
+         * @return bits of the searches that had reached the cell before
+         */
+        private int publish(int id, double g) {
+            costs.set(id, Double.doubleToRawLongBits(g));
+            return claim(id, bit);
+        }
+
+        @Override
+        public void run() {
+            while (!stopped) {
+                if (open.isEmpty()) {
+                    top = Double.POSITIVE_INFINITY;
+                    return;
+                }
+
+                double key = open.peekKey();
+                top = key;
+
+                if (key + other.top >= best) {
+                    stopped = true;
+                    return;
+                }
+
+                expand(open.poll());
+            }
+        }
+
+        private void expand(int min) {
+            closed.add(min);
+            expanded++;
+            markClosed(min);
+
+            int count = neighbors(min, buffer);
+            for (int i = 0; i < count; i++) {
+                pause();
+
+                int n = buffer[i];
+
+                if (closed.contains(n)) {
+                    if (isForward)
+                        markRevisited(n);
+
+                    continue;
+                }
+
+                double g = own.getGCost(min) + (isForward ? map.moveCost(min, n) : map.moveCost(n, min));
+
+                // already queued with a path that is at least as short
+                if (own.getGCost(n) <= g)
+                    continue;
+
+                markOpen(n);
+
+                own.reach(n, min, g);
+
+                if (isForward)
+                    open.offer(n, g + potential(n), heuristic(n));
+                else
+                    open.offer(n, g - potential(n), startHeuristic(n));
+
+                int reachedBy = publish(n, g);
+                if ((reachedBy & other.bit) != 0)
+                    offerMeet(g + Double.longBitsToDouble(otherCosts.get(n)), n);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,162 @@
+package search.pathfinder.heuristic;
+
+import search.grid.Cell;
+import search.grid.CompactGrid;
+import search.grid.Grid;
+import search.util.IndexedMinHeap;
+import search.util.IntStack;
+import search.util.VisitedSet;
+
+/**
+ * Theta*, an any-angle A*. When a neighbor is reached, the parent of the cell being expanded gets to be its parent
+ * instead if there is a {@link CompactGrid#hasLineOfSight(int, int) line of sight} between them, costing the straight
+ * line between the two. The path is then a few straight lines at any angle, which is shorter than anything made of
+ * orthogonal and diagonal moves and doesn't zigzag across open areas. It isn't always the shortest any-angle path,
+ * but it's close.
+ *
+ * <p>Straight lines only cost their length when every cell costs the same, so on maps with terrain costs it keeps to
+ * the moves of the grid like a plain A*. Goes to the first goal cell of the map only, since a line to one goal cell
+ * can be shorter than the moves to the nearest one</p>
+ *
+ * <p>When the goal is found the cells each line crosses are filled in, so the path has every cell on it just like the
+ * other searchers</p>
+ *
+ * <p>As described in <i>Theta*: Any-Angle Path Planning on Grids</i> by Daniel, Nash, Koenig and Felner</p>
+ */
+public class ThetaStarSearcher extends HeuristicSearcher {
+
+    /**
+     * Whether or not every cell of the map costs the same, so lines of sight can be taken
+     */
+    private boolean anyAngle;
+
+    /**
+     * Cells crossed by a line while filling in the path
+     */
+    private final IntStack lineCells = new IntStack();
+
+    public ThetaStarSearcher(Grid grid, boolean showMultipleColors) {
+        super(grid, showMultipleColors);
+    }
+
+    @Override
+    protected void prepare() {
+        super.prepare();
+
+        anyAngle = map.hasUniformCosts();
+    }
+
+    @Override
+    protected double heuristic(int id) {
+        // lines can go at any angle, so the octile distance could be more than the cost left
+        return euclideanDistance(map.getRow(id), map.getCol(id)) * Cell.COST_TO_CELL;
+    }
+
+    @Override
+    protected int find() {
+        IndexedMinHeap open = context.getOpen();
+        VisitedSet closed = context.getClosed();
+
+        context.setGCost(start, 0);
+        open.offer(start, heuristic(start), heuristic(start));
+
+        while (!open.isEmpty()) {
+            int min = open.poll();
+
+            if (min == goal) {
+                if (anyAngle)
+                    fillPath(min);
+
+                return min;
+            }
+
+            closed.add(min);
+            expanded++;
+            markClosed(min);
+
+            int parent = context.getParent(min);
+
+            int count = neighbors(min, neighborBuffer);
+            for (int i = 0; i < count; i++) {
+                pause();
+
+                int n = neighborBuffer[i];
+
+                if (closed.contains(n)) {
+                    markRevisited(n);
+                    continue;
+                }
+
+                int from = min;
+                double g;
+
+                if (anyAngle && parent >= 0) {
+                    // no way through this cell is shorter than the line from its parent, so if that can't improve on
+                    // how the neighbor was reached, neither can anything else and the line doesn't need checking
+                    g = context.getGCost(parent) + lineCost(parent, n);
+                    if (context.getGCost(n) <= g)
+                        continue;
+
+                    if (map.hasLineOfSight(parent, n))
+                        from = parent;
+                    else
+                        g = context.getGCost(min) + map.moveCost(min, n);
+                } else {
+                    g = context.getGCost(min) + map.moveCost(min, n);
+                }
+
+                // already queued with a path that is at least as short
+                if (context.getGCost(n) <= g)
+                    continue;
+
+                markOpen(n);
+
+                context.reach(n, from, g);
+
+                double h = heuristic(n);
+                open.offer(n, g + h, h);
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Cost of going in a straight line between the centers of two cells
+     */
+    private double lineCost(int from, int to) {
+        int dRow = map.getRow(to) - map.getRow(from);
+        int dCol = map.getCol(to) - map.getCol(from);
+
+        return Math.sqrt(dRow * dRow + dCol * dCol) * Cell.COST_TO_CELL;
+    }
+
+    /**
+     * Gives every cell crossed by a line on the path a parent, so the path can be followed one cell at a time
+     *
+     * @param id id of the goal cell
+     */
+    private void fillPath(int id) {
+        for (int curr = id; context.getParent(curr) >= 0; ) {
+            int lineParent = context.getParent(curr);
+            double g = context.getGCost(lineParent);
+
+            lineCells.clear();
+            map.walkLine(lineParent, curr, lineCells);
+
+            // the stack holds the line from its parent to the current cell, so it's popped from the current cell back
+            int cell = lineCells.pop();
+            while (lineCells.size() > 1) {
+                int next = lineCells.pop();
+
+                context.reach(next, -1, g + lineCost(lineParent, next));
+                context.setParent(cell, next);
+                cell = next;
+            }
+
+            context.setParent(cell, lineParent);
+            curr = lineParent;
+        }
+    }
+
+}
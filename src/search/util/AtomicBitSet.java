@@ -0,0 +1,71 @@
+package search.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A set of cell ids that any number of threads can add to at once, backed by an <code>AtomicLongArray</code> bitset,
+ * one bit per cell.
+ *
+ * <p>{@link #add(int)} sets a bit with a compare-and-set loop and reports whether it was the one that set it, so when
+ * several threads reach the same cell exactly one of them claims it</p>
+ */
+public class AtomicBitSet {
+
+    /**
+     * One bit per id
+     */
+    private final AtomicLongArray words;
+
+    /**
+     * Number of ids the set can hold
+     */
+    private final int capacity;
+
+    /**
+     * Constructs an empty set that can hold the ids <code>[0, capacity)</code>
+     *
+     * @param capacity number of distinct ids
+     */
+    public AtomicBitSet(int capacity) {
+        this.capacity = capacity;
+        words = new AtomicLongArray((int) (((long) capacity + 63) >>> 6));
+    }
+
+    /**
+     * Adds <code>id</code> to the set
+     *
+     * @param id id to add
+     * @return <code>true</code> if the id wasn't already in the set, for exactly one of the threads adding it
+     */
+    public boolean add(int id) {
+        int w = id >>> 6;
+        long bit = 1L << id;
+
+        while (true) {
+            long word = words.get(w);
+
+            if ((word & bit) != 0)
+                return false;
+
+            if (words.compareAndSet(w, word, word | bit))
+                return true;
+        }
+    }
+
+    public boolean contains(int id) {
+        return (words.get(id >>> 6) & (1L << id)) != 0;
+    }
+
+    /**
+     * Removes every id. Not safe to call while other threads are adding
+     */
+    public void clear() {
+        for (int i = 0; i < words.length(); i++)
+            words.lazySet(i, 0);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+}
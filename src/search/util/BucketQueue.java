@@ -0,0 +1,98 @@
+package search.util;
+
+/**
+ * A monotone priority queue of ids with whole-number keys that only ever go up by small steps, as used by Dial's
+ * algorithm. Instead of a heap it keeps a ring of buckets, one per key, so offering and polling are O(1) amortized
+ * and never compare keys.
+ *
+ * <p>Keys must never go down: every key offered has to be at least the key of the last id polled and at most
+ * <code>maxStep</code> more than it. That holds for Dijkstra's algorithm when no move costs more than
+ * <code>maxStep</code>, and it means no more than <code>maxStep + 1</code> buckets are ever in use at once. The same id
+ * can be offered more than once; the caller skips the copies it has already settled when they are polled</p>
+ */
+public class BucketQueue {
+
+    private final IntStack[] buckets;
+
+    /**
+     * Key of the bucket being polled from. A <code>long</code>, since the keys of a long path can outgrow an
+     * <code>int</code> even though every step is small
+     */
+    private long current;
+
+    private int size;
+
+    /**
+     * @param maxStep most that an offered key can be over the key of the last id polled
+     */
+    public BucketQueue(int maxStep) {
+        if (maxStep < 0)
+            throw new IllegalArgumentException("Step must not be negative, was " + maxStep);
+
+        buckets = new IntStack[maxStep + 1];
+    }
+
+    /**
+     * @param id id to add
+     * @param key key of the id, from the key of the last id polled to <code>maxStep</code> more than it
+     */
+    public void offer(int id, long key) {
+        if (key < current || key - current >= buckets.length)
+            throw new IllegalArgumentException("Key " + key + " is out of [" + current + ", "
+                    + (current + buckets.length - 1) + "]");
+
+        int b = (int) (key % buckets.length);
+        if (buckets[b] == null)
+            buckets[b] = new IntStack();
+
+        buckets[b].push(id);
+        size++;
+    }
+
+    /**
+     * @return an id with the lowest key. The queue must not be empty
+     */
+    public int poll() {
+        int b = (int) (current % buckets.length);
+        while (buckets[b] == null || buckets[b].isEmpty()) {
+            current++;
+            b = (b + 1 == buckets.length) ? 0 : b + 1;
+        }
+
+        size--;
+        return buckets[b].pop();
+    }
+
+    /**
+     * @return most that an offered key can be over the key of the last id polled
+     */
+    public int getMaxStep() {
+        return buckets.length - 1;
+    }
+
+    /**
+     * @return key of the last id polled
+     */
+    public long getKey() {
+        return current;
+    }
+
+    public void clear() {
+        for (IntStack bucket : buckets) {
+            if (bucket != null)
+                bucket.clear();
+        }
+
+        current = 0;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+}
@@ -0,0 +1,147 @@
+package search.util;
+
+/**
+ * A <code>ChangeJournal</code> is a log of the ids that were changed, in the order they were changed, so anything that
+ * mirrors them only has to redo the work for what changed instead of rescanning every id.
+ *
+ * <p>The journal keeps the last {@link #capacity()} ids in a ring buffer and counts every id ever recorded as its
+ * version. Each subscriber reads through its own {@link Cursor}. A subscriber that falls more than a full ring behind
+ * has lost changes; its next drain reports {@link #OVERFLOW} and skips it to the newest version, and it has to treat
+ * every id as changed once. Nothing is written to the ring while there are no subscribers</p>
+ *
+ * <p>Recording and draining may happen on different threads</p>
+ */
+public class ChangeJournal {
+
+    /**
+     * Returned by {@link Cursor#drain(int[])} when changes were lost
+     */
+    public static final int OVERFLOW = -1;
+
+    /**
+     * Ids in the order they were recorded. The id recorded at version <code>v</code> is at <code>v & mask</code>
+     */
+    private final int[] ids;
+    private final int mask;
+
+    /**
+     * Number of ids ever recorded
+     */
+    private long version;
+
+    private int subscribers;
+
+    /**
+     * Constructs an empty journal
+     *
+     * @param capacity least number of changes a subscriber can fall behind by without losing any. Rounded up to a
+     *                 power of two
+     */
+    public ChangeJournal(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Capacity must be in [1, 2^30], was " + capacity);
+
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity)
+            size <<= 1;
+
+        ids = new int[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Records that an id changed
+     *
+     * @param id id that changed
+     */
+    public synchronized void record(int id) {
+        if (subscribers > 0)
+            ids[(int) version & mask] = id;
+
+        version++;
+    }
+
+    /**
+     * @return number of ids ever recorded. Goes up by one with every change, so it can key anything worked out from
+     * the ids
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return a cursor that will see every change recorded from now on
+     */
+    public synchronized Cursor subscribe() {
+        subscribers++;
+        return new Cursor(version);
+    }
+
+    /**
+     * Stops writing to the ring once the last cursor is gone
+     *
+     * @param cursor cursor that won't be drained again
+     */
+    public synchronized void unsubscribe(Cursor cursor) {
+        if (!cursor.subscribed)
+            return;
+
+        cursor.subscribed = false;
+        subscribers--;
+    }
+
+    public int capacity() {
+        return ids.length;
+    }
+
+    /**
+     * Position of one subscriber in the journal
+     */
+    public class Cursor {
+
+        /**
+         * Version of the next id to read
+         */
+        private long position;
+
+        private boolean subscribed = true;
+
+        private Cursor(long position) {
+            this.position = position;
+        }
+
+        /**
+         * Copies the ids changed since the last drain into <code>out</code>, oldest first. Call until it returns
+         * <code>0</code> to get all of them
+         *
+         * @param out array to write the ids into
+         * @return number of ids written, or {@link #OVERFLOW} if changes were lost since the last drain
+         */
+        public int drain(int[] out) {
+            synchronized (ChangeJournal.this) {
+                if (version - position > ids.length) {
+                    position = version;
+                    return OVERFLOW;
+                }
+
+                int count = (int) Math.min(out.length, version - position);
+                for (int i = 0; i < count; i++)
+                    out[i] = ids[(int) (position + i) & mask];
+
+                position += count;
+                return count;
+            }
+        }
+
+        /**
+         * @return whether or not anything was recorded since the last drain
+         */
+        public boolean hasChanges() {
+            synchronized (ChangeJournal.this) {
+                return position != version;
+            }
+        }
+
+    }
+
+}
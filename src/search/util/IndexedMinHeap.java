@@ -0,0 +1,232 @@
+package search.util;
+
+import java.util.Arrays;
+
+/**
+ * An <code>IndexedMinHeap</code> is a binary min-heap of cell ids ordered by a <code>double</code> key.
+ * Ties on the key are broken by a second, optional key.
+ *
+ * <p>Every id in <code>[0, capacity)</code> has a slot in a position table, so membership tests, key lookups and
+ * decrease-key operations never have to scan the heap. Every operation is <code>O(log n)</code> or better</p>
+ */
+public class IndexedMinHeap {
+
+    /**
+     * Heap ordered array of ids
+     */
+    private final int[] heap;
+
+    /**
+     * Position of each id in {@link #heap}, <code>-1</code> if the id isn't in the heap
+     */
+    private final int[] position;
+
+    /**
+     * Key of each id
+     */
+    private final double[] keys;
+
+    /**
+     * Tie-breaking key of each id
+     */
+    private final double[] ties;
+
+    /**
+     * Number of ids in the heap
+     */
+    private int size;
+
+    /**
+     * Constructs an empty heap that can hold the ids <code>[0, capacity)</code>
+     *
+     * @param capacity number of distinct ids
+     */
+    public IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        position = new int[capacity];
+        keys = new double[capacity];
+        ties = new double[capacity];
+
+        Arrays.fill(position, -1);
+    }
+
+    /**
+     * Inserts <code>id</code> with a tie-breaking key of <code>0</code>, or changes its key if it is already in the heap
+     *
+     * @param id id to insert or update
+     * @param key new key of the id
+     */
+    public void offer(int id, double key) {
+        offer(id, key, 0);
+    }
+
+    /**
+     * Inserts <code>id</code>, or changes its keys if it is already in the heap. The key may go up or down
+     *
+     * @param id id to insert or update
+     * @param key new key of the id
+     * @param tie new tie-breaking key of the id, smaller is polled first
+     */
+    public void offer(int id, double key, double tie) {
+        keys[id] = key;
+        ties[id] = tie;
+
+        int pos = position[id];
+        if (pos < 0) {
+            heap[size] = id;
+            position[id] = size;
+            siftUp(size++);
+        } else {
+            siftUp(pos);
+            siftDown(position[id]);
+        }
+    }
+
+    /**
+     * @return id with the smallest key, <code>-1</code> if the heap is empty
+     */
+    public int peek() {
+        return (size == 0) ? -1 : heap[0];
+    }
+
+    /**
+     * Removes and returns the id with the smallest key
+     *
+     * @return id with the smallest key, <code>-1</code> if the heap is empty
+     */
+    public int poll() {
+        if (size == 0)
+            return -1;
+
+        int min = heap[0];
+        remove(min);
+
+        return min;
+    }
+
+    /**
+     * Removes <code>id</code> from the heap if it is in it
+     *
+     * @param id id to remove
+     */
+    public void remove(int id) {
+        int pos = position[id];
+        if (pos < 0)
+            return;
+
+        position[id] = -1;
+        size--;
+
+        if (pos != size) {
+            int last = heap[size];
+            heap[pos] = last;
+            position[last] = pos;
+
+            siftUp(pos);
+            siftDown(position[last]);
+        }
+    }
+
+    /**
+     * @param id id to look for
+     * @return whether or not <code>id</code> is in the heap
+     */
+    public boolean contains(int id) {
+        return position[id] >= 0;
+    }
+
+    /**
+     * @param id id to get the key of
+     * @return key of <code>id</code>. Only meaningful while the id is in the heap
+     */
+    public double getKey(int id) {
+        return keys[id];
+    }
+
+    /**
+     * @param id id to get the tie-breaking key of
+     * @return tie-breaking key of <code>id</code>. Only meaningful while the id is in the heap
+     */
+    public double getTie(int id) {
+        return ties[id];
+    }
+
+    /**
+     * @return smallest key in the heap, <code>Double.POSITIVE_INFINITY</code> if the heap is empty
+     */
+    public double peekKey() {
+        return (size == 0) ? Double.POSITIVE_INFINITY : keys[heap[0]];
+    }
+
+    /**
+     * Removes every id from the heap. Runs in time proportional to the size of the heap, not its capacity
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++)
+            position[heap[i]] = -1;
+
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int capacity() {
+        return position.length;
+    }
+
+    private boolean less(int a, int b) {
+        return keys[a] < keys[b] || (keys[a] == keys[b] && ties[a] < ties[b]);
+    }
+
+    private void siftUp(int pos) {
+        int id = heap[pos];
+
+        while (pos > 0) {
+            int parentPos = (pos - 1) >>> 1;
+            int parent = heap[parentPos];
+
+            if (!less(id, parent))
+                break;
+
+            heap[pos] = parent;
+            position[parent] = pos;
+            pos = parentPos;
+        }
+
+        heap[pos] = id;
+        position[id] = pos;
+    }
+
+    private void siftDown(int pos) {
+        int id = heap[pos];
+        int half = size >>> 1;
+
+        while (pos < half) {
+            int childPos = 2 * pos + 1;
+            int child = heap[childPos];
+
+            int rightPos = childPos + 1;
+            if (rightPos < size && less(heap[rightPos], child)) {
+                childPos = rightPos;
+                child = heap[childPos];
+            }
+
+            if (!less(child, id))
+                break;
+
+            heap[pos] = child;
+            position[child] = pos;
+            pos = childPos;
+        }
+
+        heap[pos] = id;
+        position[id] = pos;
+    }
+
+}
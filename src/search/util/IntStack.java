@@ -0,0 +1,47 @@
+package search.util;
+
+import java.util.Arrays;
+
+/**
+ * A growable stack of <code>int</code>s that doesn't box its elements
+ */
+public class IntStack {
+
+    private int[] elements;
+    private int size;
+
+    public IntStack() {
+        this(16);
+    }
+
+    public IntStack(int initialCapacity) {
+        elements = new int[Math.max(1, initialCapacity)];
+    }
+
+    public void push(int value) {
+        if (size == elements.length)
+            elements = Arrays.copyOf(elements, 2 * size);
+
+        elements[size++] = value;
+    }
+
+    /**
+     * @return the element on top of the stack. The stack must not be empty
+     */
+    public int pop() {
+        return elements[--size];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+}
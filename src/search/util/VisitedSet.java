@@ -0,0 +1,118 @@
+package search.util;
+
+/**
+ * A <code>VisitedSet</code> is a set of cell ids backed by a <code>long[]</code> bitset, one bit per cell
+ * (<code>row * cols + col</code>).
+ *
+ * <p>Membership checks are a shift and a mask. The set also remembers which words it has written to, so
+ * {@link #clear()} only touches the part of the bitset a search actually used</p>
+ */
+public class VisitedSet {
+
+    /**
+     * One bit per id
+     */
+    private final long[] words;
+
+    /**
+     * Indices of the words written to since the last clear, in the order they were first written
+     */
+    private final int[] dirty;
+
+    /**
+     * One bit per word, set if the word's index is in {@link #dirty}
+     */
+    private final long[] dirtyMarks;
+
+    /**
+     * Number of entries in {@link #dirty}
+     */
+    private int dirtyCount;
+
+    /**
+     * Number of ids in the set
+     */
+    private int size;
+
+    /**
+     * Constructs an empty set that can hold the ids <code>[0, capacity)</code>
+     *
+     * @param capacity number of distinct ids
+     */
+    public VisitedSet(int capacity) {
+        words = new long[(capacity + 63) >>> 6];
+        dirty = new int[words.length];
+        dirtyMarks = new long[(words.length + 63) >>> 6];
+    }
+
+    /**
+     * Adds <code>id</code> to the set
+     *
+     * @param id id to add
+     * @return <code>true</code> if the id wasn't already in the set
+     */
+    public boolean add(int id) {
+        int w = id >>> 6;
+        long bit = 1L << id;
+        long word = words[w];
+
+        if ((word & bit) != 0)
+            return false;
+
+        if (word == 0 && (dirtyMarks[w >>> 6] & (1L << w)) == 0) {
+            dirtyMarks[w >>> 6] |= 1L << w;
+            dirty[dirtyCount++] = w;
+        }
+
+        words[w] = word | bit;
+        size++;
+
+        return true;
+    }
+
+    /**
+     * @param id id to look for
+     * @return whether or not <code>id</code> is in the set
+     */
+    public boolean contains(int id) {
+        return (words[id >>> 6] & (1L << id)) != 0;
+    }
+
+    /**
+     * Removes <code>id</code> from the set
+     *
+     * @param id id to remove
+     */
+    public void remove(int id) {
+        int w = id >>> 6;
+        long bit = 1L << id;
+
+        if ((words[w] & bit) != 0) {
+            words[w] &= ~bit;
+            size--;
+        }
+    }
+
+    /**
+     * Removes every id. Only the words that were written to since the last clear are reset
+     */
+    public void clear() {
+        for (int i = 0; i < dirtyCount; i++) {
+            int w = dirty[i];
+            words[w] = 0;
+            dirtyMarks[w >>> 6] = 0;
+        }
+
+        dirtyCount = 0;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+}